@@ -23,54 +23,254 @@ public class MyAI extends Agent
 {
     final int maxDimension = 7;
 
-    // Tile Structure
-    private class Tile
-    {
-        int visitedNum = 0;
-        boolean breeze = false; //used to infer pit
-        boolean stench = false; //used to infer wumpus
-        double pitProb = 0.2;
-        double wumpusProb = 1.0/((double)maxDimension*(double)maxDimension);
-        boolean queue = false; //has been in DFS queue?
+    // Knowledge base: flat arrays and bitsets indexed by square, square (x, y) is y*maxDimension + x
+    // maxDimension*maxDimension <= 64, so every per-square flag fits in one long
+    final float pitPrior = 0.2f;
+    final float wumpusPrior = 1.0f/(maxDimension*maxDimension);
+
+    private int[] visitedNum;       // times the agent has been on the square
+    private float[] pitProb;        // P(pit), 0 means sure there is no pit
+    private float[] wumpusProb;     // P(wumpus), 0 means sure there is no wumpus
+    private long breezeBits;        // used to infer pit
+    private long stenchBits;        // used to infer wumpus
+    private long queuedBits;        // has been in DFS queue?
+    private long safeBits;          // pitProb == 0 and wumpusProb == 0
+
+    private int cell(int x, int y){
+
+        return y*maxDimension + x;
     }
 
-    //each option represents an adjacent square
-    private class Options
-    {
-        int xOff = 0;
-        int yOff = 0;
-        boolean valid = false;
+    private long bit(int x, int y){
+
+        return 1L << (y*maxDimension + x);
     }
 
+    //forget everything about the squares
+    private void resetKnowledge(){
+
+        Arrays.fill(visitedNum, 0);
+        Arrays.fill(pitProb, pitPrior);
+        Arrays.fill(wumpusProb, wumpusPrior);
+        breezeBits = 0;
+        stenchBits = 0;
+        queuedBits = 0;
+        safeBits = 0;
+    }
+
+    //every write to pitProb and wumpusProb goes through these two, so that safeBits stays in step
+    private void storePitProb(int x, int y, float p){
+
+        pitProb[cell(x, y)] = p;
+        updateSafeBit(x, y);
+    }
+
+    private void storeWumpusProb(int x, int y, float p){
+
+        wumpusProb[cell(x, y)] = p;
+        updateSafeBit(x, y);
+    }
+
+    private void updateSafeBit(int x, int y){
+
+        if(pitProb[cell(x, y)] == 0 && wumpusProb[cell(x, y)] == 0) safeBits |= bit(x, y);
+        else safeBits &= ~bit(x, y);
+    }
+
+    //offsets of the adjacent squares, indexed by direction: 0 - right, 1 - down, 2 - left, 3 - up
+    final int[] xOff = {1, 0, -1, 0};
+    final int[] yOff = {0, -1, 0, 1};
+
     //agent's Location
     private class Node{
 
         int x;
         int y;
-        int parentX;
-        int parentY;
 
         Node(int x, int y){
 
             this.x = x;
             this.y = y;
-            this.parentX = x;
-            this.parentY = y;
+        }
+
+        //a copy that belongs to the agent the call is made on
+        Node copy(){
+
+            return new Node(x, y);
+        }
+    }
+
+    //DFS frontier: an array-backed stack of square indices, with a bitset of the squares on it
+    //a square is pushed at most once per game (see queuedBits), so it never holds more than every square
+    private class Frontier
+    {
+        private final int[] cells = new int[maxDimension*maxDimension];
+        private int size = 0;
+        private long members = 0;
+
+        boolean isEmpty(){
+
+            return size == 0;
+        }
+
+        int size(){
+
+            return size;
+        }
+
+        //i = 0 is the bottom of the stack
+        int get(int i){
+
+            return cells[i];
+        }
+
+        boolean contains(int cell){
+
+            return (members & (1L << cell)) != 0;
+        }
+
+        //returns false if the square is already on the frontier
+        boolean push(int cell){
+
+            if(contains(cell)) return false;
+
+            cells[size++] = cell;
+            members |= 1L << cell;
+            return true;
+        }
+
+        int pop(){
+
+            int cell = cells[--size];
+            members &= ~(1L << cell);
+            return cell;
+        }
+
+        //returns false if the square is not on the frontier
+        boolean remove(int cell){
+
+            if(!contains(cell)) return false;
+
+            int i = size - 1;
+            while(cells[i] != cell) i--;
+            System.arraycopy(cells, i + 1, cells, i, size - 1 - i);
+            size--;
+            members &= ~(1L << cell);
+            return true;
+        }
+
+        void clear(){
+
+            size = 0;
+            members = 0;
+        }
+
+        void copyFrom(Frontier other){
+
+            System.arraycopy(other.cells, 0, cells, 0, other.size);
+            size = other.size;
+            members = other.members;
         }
     }
 
     Node initialState;
     Node nextGoal;
+    Node frontierGoal; //nextGoal when it comes from the frontier, reused so that popping does not allocate
     Node wumpus;
-    Stack<Node> DFSqueue;
+    Frontier DFSqueue;
     Stack<Node> pathToOrigin;
 
     private enum AgentDirection {
         RIGHT, DOWN, LEFT, UP;
     }
 
-    //Need to create a Linked List to save subsequent Actions
-    LinkedList<Agent.Action> actionSequence; //FIFO
+    //Need to create a queue to save subsequent Actions
+    ActionQueue actionSequence; //FIFO
+
+    //Pending actions as Action ordinals in a fixed ring buffer, so queueing a maneuver allocates nothing
+    private static class ActionQueue
+    {
+        private static final Action[] ACTIONS = Action.values();
+        private final byte[] actions = new byte[8]; //the longest maneuver queues 3 actions
+        private int head = 0;
+        private int size = 0;
+
+        boolean isEmpty(){
+
+            return size == 0;
+        }
+
+        void add(Action action){
+
+            actions[(head + size++) & 7] = (byte) action.ordinal();
+        }
+
+        Action poll(){
+
+            Action action = ACTIONS[actions[head]];
+            head = (head + 1) & 7;
+            size--;
+            return action;
+        }
+
+        void clear(){
+
+            head = 0;
+            size = 0;
+        }
+
+        ActionQueue copy(){
+
+            ActionQueue queue = new ActionQueue();
+            System.arraycopy(actions, 0, queue.actions, 0, actions.length);
+            queue.head = head;
+            queue.size = size;
+            return queue;
+        }
+    }
+
+    //MOVE_SEQUENCE[current*4 + desired] turns the agent from direction current to direction desired and moves forward,
+    //KILL_SEQUENCE does the same but shoots before moving
+    private static final Action[][] MOVE_SEQUENCE = buildSequences(false);
+    private static final Action[][] KILL_SEQUENCE = buildSequences(true);
+
+    //directions are numbered clockwise, so (desired - current) mod 4 says which way to turn
+    private static Action[][] buildSequences(boolean shoot){
+
+        Action[][] sequences = new Action[16][];
+
+        for(int current = 0; current < 4; current++){
+            for(int desired = 0; desired < 4; desired++){
+
+                Action[] turns;
+
+                switch((desired - current + 4) % 4){
+
+                    case 1: // {R -> F}
+                        turns = new Action[]{Action.TURN_RIGHT};
+                        break;
+
+                    case 2: // {L -> L -> F}
+                        turns = new Action[]{Action.TURN_LEFT, Action.TURN_LEFT};
+                        break;
+
+                    case 3: // {L -> F}
+                        turns = new Action[]{Action.TURN_LEFT};
+                        break;
+
+                    default: // {F}
+                        turns = new Action[0];
+                }
+
+                Action[] sequence = Arrays.copyOf(turns, turns.length + (shoot ? 2 : 1));
+                if(shoot) sequence[turns.length] = Action.SHOOT;
+                sequence[sequence.length - 1] = Action.FORWARD;
+                sequences[current*4 + desired] = sequence;
+            }
+        }
+
+        return sequences;
+    }
 
     // Agent Variables => record what has happened in the world
     private boolean	goldLooted;		// True if gold was successfuly looted
@@ -87,8 +287,7 @@ public class MyAI extends Agent
     private int		lastAgentX;			// The column where the agent was located ( x-coord = col-coord )
     private int		lastAgentY;			// The row where the agent was located ( y-coord = row-coord )
     private Agent.Action	lastAction;	// The last action the agent made
-    private Tile[][]	board;			// The game board, max = 7*7
-    private Options[] options;          // each option represents an adjacent square
+    private int[] neighbor;             // neighbor[cell*4 + dir] is the adjacent square in direction dir, or -1
     private int     visitedTiles;       // number of tiles which have been visited
     private int actionCount;
     private boolean debug;
@@ -103,25 +302,26 @@ public class MyAI extends Agent
     }
 
     //assume wumpus and pit are independent, so P(safe) = P(no wumpus)*P(no pit)
-    private double safeProb(int x, int y){
+    //P(safe) = 1 exactly when both are 0, which is what safeBits records
+    private boolean isSafe(int x, int y){
 
-        if(x >= colDimensionLogic || y >= rowDimensionLogic) return 0.0;
-        return (1 - board[x][y].wumpusProb)*(1 - board[x][y].pitProb);
+        if(x >= colDimensionLogic || y >= rowDimensionLogic) return false;
+        return (safeBits & bit(x, y)) != 0;
     }
 
-    private void assignPitProb(int x, int y, double p){
+    private void assignPitProb(int x, int y, float p){
 
-        if(board[x][y].pitProb != 0){ //if it is zero, means we are sure there is no pit, so don't need to change
+        if(pitProb[cell(x, y)] != 0){ //if it is zero, means we are sure there is no pit, so don't need to change
 
-            board[x][y].pitProb = p;
+            storePitProb(x, y, p);
         }
     }
 
-    private void assignWumpusProb(int x, int y, double p){
+    private void assignWumpusProb(int x, int y, float p){
 
-        if(board[x][y].wumpusProb != 0){ //if it is zero, means we are sure there is no wumpus, so don't need to change
+        if(wumpusProb[cell(x, y)] != 0){ //if it is zero, means we are sure there is no wumpus, so don't need to change
 
-            board[x][y].wumpusProb = p;
+            storeWumpusProb(x, y, p);
         }
     }
 
@@ -129,60 +329,62 @@ public class MyAI extends Agent
     private int			colDimensionLogic;	// The number of columns the game board has, inferred by agent
     private int			rowDimensionLogic;	// The number of rows the game board has, inferred by agent
 
-    //AStarPath
-    class AStarPath implements Comparable<AStarPath>{
-
-        int f, g, h;
-        AgentDirection dir;
-        LinkedList<Node> path;
-
-        public AStarPath(int g, int h, AgentDirection dir) {
-
-            this.g = g;
-            this.h = h;
-            this.f = g + h;
-            this.dir = dir;
-            this.path = new LinkedList<Node>();
-        }
+    //A* over (x, y, heading) states, state = cell*4 + heading
+    //the workspace is allocated once; entries are stamped with the search number instead of being cleared
+    private static final int STATE_BITS = 21;
+    private static final long STATE_MASK = (1L << STATE_BITS) - 1;
+    private int[] gCost;            // cheapest known cost to each state
+    private int[] parent;           // the state it was reached from, -1 for the start
+    private int[] depth;            // squares on the path to each state, the start included
+    private int[] seenStamp;        // == search if gCost, parent and depth are set in this search
+    private int[] closedStamp;      // == search if the state has been expanded in this search
+    private int search;
+    private long[] openHeap;        // binary min-heap of open states, see openKey
+    private int openSize;
+
+    //the squares still to walk to the goal, the next one last
+    private int[] pathToGoal;
+    private int pathLength;
+
+    //order by f, then longer paths first, then state; ties on f and depth used to be broken by the squares on the path
+    private long openKey(int f, int depth, int state){
+
+        return ((long) f << (2*STATE_BITS)) | ((STATE_MASK - depth) << STATE_BITS) | state;
+    }
 
-        public int compareTo(AStarPath a) {
+    private void openPush(long key){
 
-            if(f > a.f) return 1;
-            else if(f < a.f) return -1;
-            else{
+        int i = openSize++;
 
-                if(path.size() > a.path.size()) return -1;
-                else if(path.size() < a.path.size()) return 1;
-                else if(path.size() == 0 && a.path.size() == 0) return 0;
-                else{
+        while(i > 0){
 
-                    int i = path.size();
-                    Node node_1, node_2;
-
-                    do{
-                        i--;
+            int p = (i - 1) >>> 1;
+            if(openHeap[p] <= key) break;
+            openHeap[i] = openHeap[p];
+            i = p;
+        }
 
-                        node_1 = path.get(i);
-                        node_2 = a.path.get(i);
+        openHeap[i] = key;
+    }
 
-                        if(node_1.x < node_2.x) return -1;
-                        else if(node_1.x > node_2.x) return 1;
-                        else{
+    private long openPop(){
 
-                            if(node_1.y < node_2.y) return -1;
-                            else if(node_1.y > node_2.y) return 1;
-                        }
+        long top = openHeap[0];
+        long last = openHeap[--openSize];
+        int i = 0;
 
-                    }while(i > 0);
+        while(2*i + 1 < openSize){
 
-                    return 0;
-                }
-            }
+            int child = 2*i + 1;
+            if(child + 1 < openSize && openHeap[child + 1] < openHeap[child]) child++;
+            if(last <= openHeap[child]) break;
+            openHeap[i] = openHeap[child];
+            i = child;
         }
-    }
 
-    TreeSet<AStarPath> AStarQueue;
-    LinkedList<Node> pathToGoal;
+        openHeap[i] = last;
+        return top;
+    }
 
     public MyAI ( )
     {
@@ -190,6 +392,100 @@ public class MyAI extends Agent
         // YOUR CODE BEGINS
         // ======================================================================
 
+        visitedNum = new int[maxDimension*maxDimension];
+        pitProb = new float[maxDimension*maxDimension];
+        wumpusProb = new float[maxDimension*maxDimension];
+
+        neighbor = new int[maxDimension*maxDimension*4];
+
+        actionSequence = new ActionQueue();
+        initialState = new Node(0,0);
+        wumpus = new Node(maxDimension - 1, maxDimension - 1);
+        frontierGoal = new Node(0,0);
+        DFSqueue = new Frontier();
+        int states = maxDimension*maxDimension*4;
+        gCost = new int[states];
+        parent = new int[states];
+        depth = new int[states];
+        seenStamp = new int[states];
+        closedStamp = new int[states];
+        openHeap = new long[4*states + 1]; //every expanded state pushes at most 4 states
+        pathToGoal = new int[maxDimension*maxDimension];
+
+        reset();
+        // ======================================================================
+        // YOUR CODE ENDS
+        // ======================================================================
+    }
+
+    //a copy of the agent in the middle of a game: the knowledge base, the pending actions and the path being walked
+    //are copied, and nextGoal is pointed at the copy of whichever node it points at here
+    //the A* workspace is not, the copy starts its own
+    private MyAI(MyAI other){
+
+        visitedNum = other.visitedNum.clone();
+        pitProb = other.pitProb.clone();
+        wumpusProb = other.wumpusProb.clone();
+        breezeBits = other.breezeBits;
+        stenchBits = other.stenchBits;
+        queuedBits = other.queuedBits;
+        safeBits = other.safeBits;
+        neighbor = other.neighbor.clone();
+
+        actionSequence = other.actionSequence.copy();
+        initialState = other.initialState.copy();
+        wumpus = other.wumpus.copy();
+        frontierGoal = other.frontierGoal.copy();
+        if(other.nextGoal == other.initialState) nextGoal = initialState;
+        else if(other.nextGoal == other.wumpus) nextGoal = wumpus;
+        else if(other.nextGoal == other.frontierGoal) nextGoal = frontierGoal;
+        else nextGoal = other.nextGoal == null ? null : other.nextGoal.copy();
+        DFSqueue = new Frontier();
+        DFSqueue.copyFrom(other.DFSqueue);
+
+        int states = maxDimension*maxDimension*4;
+        gCost = new int[states];
+        parent = new int[states];
+        depth = new int[states];
+        seenStamp = new int[states];
+        closedStamp = new int[states];
+        openHeap = new long[4*states + 1];
+        pathToGoal = other.pathToGoal.clone();
+        pathLength = other.pathLength;
+
+        goldLooted = other.goldLooted;
+        goldImpossible = other.goldImpossible;
+        hasArrow = other.hasArrow;
+        wumpusAlive = other.wumpusAlive;
+        wumpusCertain = other.wumpusCertain;
+        killWumpus = other.killWumpus;
+        agentDir = other.agentDir;
+        moving = other.moving;
+        agentX = other.agentX;
+        agentY = other.agentY;
+        lastAgentDir = other.lastAgentDir;
+        lastAgentX = other.lastAgentX;
+        lastAgentY = other.lastAgentY;
+        lastAction = other.lastAction;
+        visitedTiles = other.visitedTiles;
+        actionCount = other.actionCount;
+        debug = other.debug;
+        originalPath = other.originalPath;
+        AStar = other.AStar;
+        colDimensionLogic = other.colDimensionLogic;
+        rowDimensionLogic = other.rowDimensionLogic;
+    }
+
+    @Override
+    public MyAI fork(){
+
+        return new MyAI(this);
+    }
+
+    //put the agent back into its initial state, reusing the knowledge base arrays, so that it can play another game
+    @Override
+    public void reset(){
+
         // Agent Initialization
         goldLooted   = false;
         goldImpossible = false;
@@ -207,38 +503,23 @@ public class MyAI extends Agent
         lastAgentX  = -1;
         lastAgentY  = -1;
         lastAction   = Action.CLIMB;
-        board = new Tile[maxDimension][maxDimension];			// The game board, max = 7*7
-        for ( int r = 0; r < maxDimension; ++r )
-            for ( int c = 0; c < maxDimension; ++c )
-                board[c][r] = new Tile();
-
-        // Initialize options
-        options = new Options[4]; // Index represents relative direction, e.g. options[3] means upper square
-        for ( int i = 0; i < 4; i++)
-            options[i] = new Options();
-        options[0].xOff = 1;
-        options[1].yOff = -1;
-        options[2].xOff = -1;
-        options[3].yOff = 1;
+        resetKnowledge();
 
         colDimensionLogic = maxDimension;
         rowDimensionLogic = maxDimension;
+        buildNeighbors();
 
-        actionSequence = new LinkedList<Agent.Action>();
+        actionSequence.clear();
         visitedTiles = 0;
         actionCount = 0;
 
-        initialState = new Node(0,0);
-        nextGoal = new Node(0,0);
-        wumpus = new Node(colDimensionLogic - 1, rowDimensionLogic - 1);
-        DFSqueue = new Stack<Node>();
-        AStarQueue = new TreeSet<AStarPath>();
-        pathToGoal = new LinkedList<Node>();
+        nextGoal = initialState;
+        wumpus.x = colDimensionLogic - 1;
+        wumpus.y = rowDimensionLogic - 1;
+        DFSqueue.clear();
+        pathLength = 0;
 
         debug = false;
-        // ======================================================================
-        // YOUR CODE ENDS
-        // ======================================================================
     }
 
     @Override
@@ -298,6 +579,9 @@ public class MyAI extends Agent
                     break;
             }
 
+            //the known bounds moved, so do the edges of the board
+            buildNeighbors();
+
             //because the current goal is invalid (over the boundary), need to re-set goal
             setNextGoal();
             moving = true;
@@ -319,22 +603,22 @@ public class MyAI extends Agent
 
                     case RIGHT:
                         for(int i = agentX; i < colDimensionLogic; i++)
-                            board[i][agentY].wumpusProb = 0;
+                            storeWumpusProb(i, agentY, 0);
                         break;
 
                     case LEFT:
                         for(int i = agentX; i >=0; i--)
-                            board[i][agentY].wumpusProb = 0;
+                            storeWumpusProb(i, agentY, 0);
                         break;
 
                     case UP:
                         for(int i = agentY; i < rowDimensionLogic; i++)
-                            board[agentX][i].wumpusProb = 0;
+                            storeWumpusProb(agentX, i, 0);
                         break;
 
                     case DOWN:
                         for(int i = agentY; i >= 0; i--)
-                            board[agentX][i].wumpusProb = 0;
+                            storeWumpusProb(agentX, i, 0);
                         break;
                 }
 
@@ -345,7 +629,7 @@ public class MyAI extends Agent
         if(lastAction == Action.CLIMB || (lastAction == Action.FORWARD && !bump)){
 
             //if not bump => store new information
-            if(board[agentX][agentY].visitedNum == 0){
+            if(visitedNum[cell(agentX, agentY)] == 0){
 
                 visitedTiles++;
             }
@@ -356,34 +640,32 @@ public class MyAI extends Agent
             //goldImpossible = true; //give up
             //}
 
-            board[agentX][agentY].visitedNum++;
+            visitedNum[cell(agentX, agentY)]++;
 
             //if this is the first time to visit here...
-            if(board[agentX][agentY].visitedNum == 1){
+            if(visitedNum[cell(agentX, agentY)] == 1){
 
                 //Step 1: add new percepts
-                board[agentX][agentY].breeze = breeze; //used to infer pit
-                board[agentX][agentY].stench = stench; //used to infer wumpus
+                if(breeze) breezeBits |= bit(agentX, agentY); //used to infer pit
+                if(stench) stenchBits |= bit(agentX, agentY); //used to infer wumpus
 
                 //Step 2: add new inferences
 
                 //agent still alive means there is neither pit nor wumpus
-                board[agentX][agentY].pitProb = 0;
-                board[agentX][agentY].wumpusProb = 0;
-
-                generateOptions(agentX, agentY);
+                storePitProb(agentX, agentY, 0);
+                storeWumpusProb(agentX, agentY, 0);
 
                 if(!breeze){ //means no pit around
 
                     for(int i = 0; i < 4; i++){
 
-                        if(options[i].valid){
+                        if(hasNeighbor(agentX, agentY, i)){
 
                             int x_1, y_1;
-                            x_1 = agentX + options[i].xOff;
-                            y_1 = agentY + options[i].yOff;
+                            x_1 = agentX + xOff[i];
+                            y_1 = agentY + yOff[i];
 
-                            board[x_1][y_1].pitProb = 0;
+                            storePitProb(x_1, y_1, 0);
                         }
                     }
                 }
@@ -391,13 +673,13 @@ public class MyAI extends Agent
 
                     for(int i = 0; i < 4; i++){
 
-                        if(options[i].valid){
+                        if(hasNeighbor(agentX, agentY, i)){
 
                             int x_1, y_1;
-                            x_1 = agentX + options[i].xOff;
-                            y_1 = agentY + options[i].yOff;
+                            x_1 = agentX + xOff[i];
+                            y_1 = agentY + yOff[i];
 
-                            assignPitProb(x_1, y_1, 1.0);
+                            assignPitProb(x_1, y_1, 1.0f);
                         }
                     }
                 }
@@ -409,13 +691,13 @@ public class MyAI extends Agent
 
                         for(int i = 0; i < 4; i++){
 
-                            if(options[i].valid){
+                            if(hasNeighbor(agentX, agentY, i)){
 
                                 int x_1, y_1;
-                                x_1 = agentX + options[i].xOff;
-                                y_1 = agentY + options[i].yOff;
+                                x_1 = agentX + xOff[i];
+                                y_1 = agentY + yOff[i];
 
-                                board[x_1][y_1].wumpusProb = 0;
+                                storeWumpusProb(x_1, y_1, 0);
                             }
                         }
                     }
@@ -461,17 +743,15 @@ public class MyAI extends Agent
 
         if(stench && wumpusAlive && killWumpus && hasArrow){
 
-            generateOptions(agentX, agentY);
-
             int i;
 
             for(i = 0; i < 4; i++){
 
-                if(options[i].valid){
+                if(hasNeighbor(agentX, agentY, i)){
 
                     int x_1, y_1;
-                    x_1 = agentX + options[i].xOff;
-                    y_1 = agentY + options[i].yOff;
+                    x_1 = agentX + xOff[i];
+                    y_1 = agentY + yOff[i];
 
                     //got the wumpus
                     if(x_1 == wumpus.x && y_1 == wumpus.y){
@@ -535,22 +815,20 @@ public class MyAI extends Agent
     //update probability based on new percepts
     private void updateWumpusProb(int x, int y){
 
-        generateOptions(x, y);
-
         int w_count = 0;
 
         for(int i = 0; i < 4; i++){
 
-            if(options[i].valid){
+            if(hasNeighbor(x, y, i)){
 
                 int x_1, y_1;
 
-                x_1 = x + options[i].xOff;
-                y_1 = y + options[i].yOff;
+                x_1 = x + xOff[i];
+                y_1 = y + yOff[i];
 
-                if(board[x_1][y_1].wumpusProb != 0){
+                if(wumpusProb[cell(x_1, y_1)] != 0){
 
-                    assignWumpusProb(x_1, y_1, 1.0);
+                    assignWumpusProb(x_1, y_1, 1.0f);
                     wumpus.x = x_1;
                     wumpus.y = y_1;
                     w_count++;
@@ -574,119 +852,43 @@ public class MyAI extends Agent
 
             for(int j = 0; j < rowDimensionLogic; j++){
 
-                board[i][j].wumpusProb = 0;
+                storeWumpusProb(i, j, 0);
             }
         }
 
         if(wumpusAlive){
 
-            board[x][y].wumpusProb = 1;
+            storeWumpusProb(x, y, 1);
         }
     }
 
-    //classification of agent's location
-    private enum Location
-    {
-        LEFT_UP,
-        UP,
-        RIGHT_UP,
-        LEFT,
-        MIDDLE,
-        RIGHT,
-        LEFT_DOWN,
-        DOWN,
-        RIGHT_DOWN
-    }
+    //fill the neighbor table from the known bounds
+    //right is open unless x is on the right edge, up unless y is on the top edge; a square on both edges
+    //of a board one square wide counts as a left (bottom) edge square, so its right (up) neighbor stays open
+    private void buildNeighbors(){
 
-    //classify agent's location
-    private Location locationCase(int x,int y){
+        for(int y = 0; y < maxDimension; y++){
 
-        if(x == 0){
-
-            if(y == 0) return Location.LEFT_DOWN;
-            if(y == rowDimensionLogic - 1) return Location.LEFT_UP;
-            return Location.LEFT;
-        }
+            for(int x = 0; x < maxDimension; x++){
 
-        if(x == colDimensionLogic - 1){
+                int i = cell(x, y)*4;
 
-            if(y == 0) return Location.RIGHT_DOWN;
-            if(y == rowDimensionLogic - 1) return Location.RIGHT_UP;
-            return Location.RIGHT;
+                neighbor[i] = (x + 1 < maxDimension && (x == 0 || x != colDimensionLogic - 1)) ? cell(x + 1, y) : -1;
+                neighbor[i + 1] = (y != 0) ? cell(x, y - 1) : -1;
+                neighbor[i + 2] = (x != 0) ? cell(x - 1, y) : -1;
+                neighbor[i + 3] = (y + 1 < maxDimension && (y == 0 || y != rowDimensionLogic - 1)) ? cell(x, y + 1) : -1;
+            }
         }
-
-        if(y == 0) return Location.DOWN;
-        if(y == rowDimensionLogic - 1) return Location.UP;
-        return Location.MIDDLE;
     }
 
-    //generate Options based on Agent Location
-    private void generateOptions(int x,int y){
-
-        for(int i = 0; i < 4; i++) options[i].valid = false;
+    private boolean hasNeighbor(int x, int y, int dir){
 
-        Location location = locationCase(x,y);
-
-        switch(location){
-
-            case LEFT_DOWN:
-                options[0].valid = true;
-                options[3].valid = true;
-                break;
-
-            case LEFT:
-                options[0].valid = true;
-                options[1].valid = true;
-                options[3].valid = true;
-                break;
-
-            case LEFT_UP:
-                options[0].valid = true;
-                options[1].valid = true;
-                break;
-
-            case DOWN:
-                options[0].valid = true;
-                options[2].valid = true;
-                options[3].valid = true;
-                break;
-
-            case MIDDLE:
-                options[0].valid = true;
-                options[1].valid = true;
-                options[2].valid = true;
-                options[3].valid = true;
-                break;
-
-            case UP:
-                options[0].valid = true;
-                options[1].valid = true;
-                options[2].valid = true;
-                break;
-
-            case RIGHT_DOWN:
-                options[2].valid = true;
-                options[3].valid = true;
-                break;
-
-            case RIGHT:
-                options[1].valid = true;
-                options[2].valid = true;
-                options[3].valid = true;
-                break;
-
-            case RIGHT_UP:
-                options[1].valid = true;
-                options[2].valid = true;
-                break;
-        }
+        return neighbor[cell(x, y)*4 + dir] >= 0;
     }
 
     //generate children and put them into the stack
     private void expandNode(int x, int y){
 
-        generateOptions(x,y);
-
         //add back children first so that they will be expanded last
         int backChild;
         backChild = agentDir.ordinal() + 2;
@@ -708,24 +910,19 @@ public class MyAI extends Agent
 
     private void expandNode_1(int x, int y, int i){
 
-        if(options[i].valid){
+        if(hasNeighbor(x, y, i)){
 
             int x_1, y_1;
 
-            x_1 = x + options[i].xOff;
-            y_1 = y + options[i].yOff;
+            x_1 = x + xOff[i];
+            y_1 = y + yOff[i];
 
             //only add 100% safe and unexplored nodes; do not add the node if it has been in the queue
-            if(safeProb(x_1, y_1) == 1 && board[x_1][y_1].visitedNum == 0 && !board[x_1][y_1].queue){
+            if(isSafe(x_1, y_1) && visitedNum[cell(x_1, y_1)] == 0 && (queuedBits & bit(x_1, y_1)) == 0){
 
-                Node node = new Node(x_1, y_1);
-                node.parentX = x;
-                node.parentY = y;
+                if(DFSqueue.push(cell(x_1, y_1))){ //not yet been added
 
-                if(DFSqueue.search(node) == -1){ //not yet been added
-
-                    DFSqueue.push(node);
-                    board[x_1][y_1].queue = true;
+                    queuedBits |= bit(x_1, y_1);
                 }
             }
         }
@@ -742,28 +939,28 @@ public class MyAI extends Agent
             case 0:
                 if(colDimensionLogic - 1 > agentX){
 
-                    if(board[agentX+1][agentY].pitProb == 0) valid = true;
+                    if(pitProb[cell(agentX+1, agentY)] == 0) valid = true;
                 }
                 break;
 
             case 1:
                 if(0 < agentY){
 
-                    if(board[agentX][agentY-1].pitProb == 0) valid = true;
+                    if(pitProb[cell(agentX, agentY-1)] == 0) valid = true;
                 }
                 break;
 
             case 2:
                 if(0 < agentX){
 
-                    if(board[agentX-1][agentY].pitProb == 0) valid = true;
+                    if(pitProb[cell(agentX-1, agentY)] == 0) valid = true;
                 }
                 break;
 
             case 3:
                 if(rowDimensionLogic - 1 > agentY){
 
-                    if(board[agentX][agentY+1].pitProb == 0) valid = true;
+                    if(pitProb[cell(agentX, agentY+1)] == 0) valid = true;
                 }
                 break;
         }
@@ -777,10 +974,10 @@ public class MyAI extends Agent
         do{
             //if the queue becomes empty, it means that there is no 100% safe and unexplored node
             //it is very likely that gold is in a pit or surrounded by pits => give up!
-            if(DFSqueue.empty()){
+            if(DFSqueue.isEmpty()){
 
                 //maybe wumpus holds the gold => kill wumpus!
-                if(!killWumpus && wumpusAlive && wumpusCertain && hasArrow && board[wumpus.x][wumpus.y].pitProb == 0){
+                if(!killWumpus && wumpusAlive && wumpusCertain && hasArrow && pitProb[cell(wumpus.x, wumpus.y)] == 0){
 
                     killWumpus = true;
                     nextGoal = wumpus;
@@ -793,125 +990,81 @@ public class MyAI extends Agent
             }
             else{
 
-                nextGoal = DFSqueue.pop();
+                int goal = DFSqueue.pop();
+                frontierGoal.x = goal % maxDimension;
+                frontierGoal.y = goal / maxDimension;
+                nextGoal = frontierGoal;
             }
 
-        }while(!(nextGoal.x < colDimensionLogic && nextGoal.y < rowDimensionLogic));
+        }while(!(nextGoal.x < colDimensionLogic && nextGoal.y < rowDimensionLogic) || !AStarSearch());
         //It is possible that when adding the node to the queue, we still do not know the boundary
         //so need to check if it is within the boundary before expanding it
-
-        AStarSearch(); //set up pathToGoal
+        //AStarSearch sets up pathToGoal; a goal it cannot reach is skipped
     }
 
-    private void AStarSearch(){
+    //find the cheapest path to nextGoal through safe squares and put it in pathToGoal; false if there is none
+    private boolean AStarSearch(){
 
-        //System.out.println("Start A* Search: " + "(" + nextGoal.x + ", " + nextGoal.y + ")");
-        AStarPath a = new AStarPath(0, h(agentX, agentY), agentDir);
-        Node node = new Node(agentX, agentY);
-        a.path.addLast(node);
-        //printAStarPath(a);
+        search++;
+        openSize = 0;
+        pathLength = 0;
 
-        AStarQueue.clear();
-        AStarQueue.add(a);
+        int start = cell(agentX, agentY)*4 + agentDir.ordinal();
+        int goal = cell(nextGoal.x, nextGoal.y);
 
-        AStarSearch_1();
-    }
+        seenStamp[start] = search;
+        gCost[start] = 0;
+        parent[start] = -1;
+        depth[start] = 1;
+        openPush(openKey(h(agentX, agentY), 1, start));
 
-    private void AStarSearch_1(){
+        while(openSize > 0){
 
-        while(!AStarQueue.isEmpty()){
+            int state = (int) (openPop() & STATE_MASK);
 
-            AStarPath a = AStarQueue.pollFirst();
+            if(closedStamp[state] == search) continue; //reached again more cheaply after it was pushed
+            closedStamp[state] = search;
 
-            //printAStarPath(a);
+            int square = state >> 2;
 
             //goal test
-            Node node = a.path.getLast();
-
-            if(node.x == nextGoal.x && node.y == nextGoal.y) {
+            if(square == goal){
 
-                //System.out.print("A* path found! ");
-                //printAStarPath(a);
-
-                pathToGoal.clear();
-                Node node_1;
-                for(int j = 1; j < a.path.size(); j++){ //j = 0 is the current node, so excluded
-
-                    node_1 = a.path.get(j);
-                    pathToGoal.addLast(node_1);
-                }
+                //j = start is the current node, so excluded
+                for(int j = state; parent[j] != -1; j = parent[j]) pathToGoal[pathLength++] = j >> 2;
 
-                return;
+                return true;
             }
 
             //expand the node
-            generateOptions(node.x, node.y);
+            int x = square % maxDimension;
+            int y = square / maxDimension;
 
             for(int i = 0; i < 4; i++){
 
-                if(options[i].valid){
+                int square_1 = neighbor[square*4 + i];
+                if(square_1 == -1) continue;
 
-                    int x_1, y_1;
-
-                    x_1 = node.x + options[i].xOff;
-                    y_1 = node.y + options[i].yOff;
+                int x_1 = x + xOff[i];
+                int y_1 = y + yOff[i];
 
-                    if(safeProb(x_1, y_1) != 1 && !(killWumpus && wumpus.x == x_1 && wumpus.y == y_1)) continue;
+                if(!isSafe(x_1, y_1) && !(killWumpus && wumpus.x == x_1 && wumpus.y == y_1)) continue;
 
-                    //check repetitive node
-                    boolean repeat = false;
-                    Node node_3;
-                    for(int j = 0; j < a.path.size(); j++){ //j = 0 is the current node
-
-                        node_3 = a.path.get(j);
-                        if(node_3.x == x_1 && node_3.y == y_1) repeat = true;
-                    }
+                int state_1 = square_1*4 + i; //moving in direction i leaves the agent facing i
+                if(closedStamp[state_1] == search) continue;
 
-                    if(repeat) continue;
-
-                    AgentDirection dir_1 = a.dir;
-
-                    switch(i) {
+                int g_1 = gCost[state] + c(state & 3, i);
+                if(seenStamp[state_1] == search && gCost[state_1] <= g_1) continue;
 
-                        case 0:
-                            dir_1 = AgentDirection.RIGHT;
-                            break;
-
-                        case 1:
-                            dir_1 = AgentDirection.DOWN;
-                            break;
-
-                        case 2:
-                            dir_1 = AgentDirection.LEFT;
-                            break;
-
-                        case 3:
-                            dir_1 = AgentDirection.UP;
-                            break;
-                    }
-
-                    AStarPath a_1 = new AStarPath(a.g + c(a.dir.ordinal(),i),h(x_1,y_1),dir_1);
-
-                    Node node_1;
-                    for(int j = 0; j < a.path.size(); j++){
-
-                        node_1 = a.path.get(j);
-                        a_1.path.addLast(node_1);
-                    }
-
-                    Node node_2 = new Node(x_1,y_1);
-                    node_2.parentX = node.x;
-                    node_2.parentY = node.y;
-                    a_1.path.addLast(node_2);
-
-                    //printAStarPath(a_1);
-
-                    AStarQueue.add(a_1);
-                }
+                seenStamp[state_1] = search;
+                gCost[state_1] = g_1;
+                parent[state_1] = state;
+                depth[state_1] = depth[state] + 1;
+                openPush(openKey(g_1 + h(x_1, y_1), depth[state_1], state_1));
             }
         }
 
-        System.out.println("Warning: cannot find A* path!");
+        return false;
     }
 
     private int c(int oldDir, int newDir){
@@ -927,23 +1080,16 @@ public class MyAI extends Agent
     }
 
     //decide how to move to the next goal
-    //randomize methods to avoid sticking around
+    //take the next square of the A* path
     private Action moveToGoal(){
 
-        Node node = pathToGoal.poll();
+        if(pathLength > 0){
 
-        generateOptions(agentX, agentY);
-
-        for(int i = 0; i < 4; i++){
-
-            if(options[i].valid){
-
-                int x_1, y_1;
+            int next = pathToGoal[--pathLength];
 
-                x_1 = agentX + options[i].xOff;
-                y_1 = agentY + options[i].yOff;
+            for(int i = 0; i < 4; i++){
 
-                if(x_1 == node.x && y_1 == node.y){
+                if(neighbor[cell(agentX, agentY)*4 + i] == next){
 
                     switch(i) {
 
@@ -977,98 +1123,13 @@ public class MyAI extends Agent
         lastAgentDir = agentDir;
 
         //update location
-        agentX = agentX + options[desiredDirection.ordinal()].xOff;
-        agentY = agentY + options[desiredDirection.ordinal()].yOff;
+        agentX = agentX + xOff[desiredDirection.ordinal()];
+        agentY = agentY + yOff[desiredDirection.ordinal()];
         agentDir = desiredDirection;
 
         lastAction = Action.FORWARD;
 
-        switch(currentDirection) {
-
-            case RIGHT:
-                switch(desiredDirection) {
-                    case RIGHT: // Facing R, go R: {F}
-                        return Action.FORWARD;
-
-                    case DOWN: // Facing R, go D: {R -> F}
-                        actionSequence.addLast(Action.FORWARD);
-                        return Action.TURN_RIGHT;
-
-                    case LEFT: // Facing R, go L: {L -> L -> F}
-                        actionSequence.addLast(Action.TURN_LEFT);
-                        actionSequence.addLast(Action.FORWARD);
-                        return Action.TURN_LEFT;
-
-                    case UP: // Facing R, go U: {L -> F}
-                        actionSequence.addLast(Action.FORWARD);
-                        return Action.TURN_LEFT;
-                }
-
-            case DOWN:
-                switch(desiredDirection) {
-                    case RIGHT: // Facing D, go R: {L -> F}
-                        actionSequence.addLast(Action.FORWARD);
-                        return Action.TURN_LEFT;
-
-                    case DOWN: // Facing D, go D: {F}
-                        return Action.FORWARD;
-
-                    case LEFT: // Facing D, go L: {R -> F}
-                        actionSequence.addLast(Action.FORWARD);
-                        return Action.TURN_RIGHT;
-
-                    case UP: // Facing D, go U: {L -> L -> F}
-                        actionSequence.addLast(Action.TURN_LEFT);
-                        actionSequence.addLast(Action.FORWARD);
-                        return Action.TURN_LEFT;
-                }
-
-            case LEFT:
-                switch(desiredDirection) {
-                    case RIGHT: // Facing L, go R: {L -> L -> F}
-                        actionSequence.addLast(Action.TURN_LEFT);
-                        actionSequence.addLast(Action.FORWARD);
-                        return Action.TURN_LEFT;
-
-                    case DOWN: // Facing L, go D: {L -> F}
-                        actionSequence.addLast(Action.FORWARD);
-                        return Action.TURN_LEFT;
-
-                    case LEFT: // Facing L, go L: {F}
-                        return Action.FORWARD;
-
-                    case UP: // Facing L, go U: {R -> F}
-                        actionSequence.addLast(Action.FORWARD);
-                        return Action.TURN_RIGHT;
-                }
-
-            case UP:
-                switch(desiredDirection) {
-                    case RIGHT: // Facing U, go R: {R -> F}
-                        actionSequence.addLast(Action.FORWARD);
-                        return Action.TURN_RIGHT;
-
-                    case DOWN: // Facing U, go D: {L -> L -> F}
-                        actionSequence.addLast(Action.TURN_LEFT);
-                        actionSequence.addLast(Action.FORWARD);
-                        return Action.TURN_LEFT;
-
-                    case LEFT: // Facing U, go L: {L -> F}
-                        actionSequence.addLast(Action.FORWARD);
-                        return Action.TURN_LEFT;
-
-                    case UP: // Facing U, go U: {F}
-                        return Action.FORWARD;
-                }
-        }
-
-        //GRAB won't affect any future decision, so set it as default action
-        agentX = lastAgentX;
-        agentY = lastAgentY;
-        agentDir = lastAgentDir;
-
-        lastAction = Action.GRAB;
-        return Action.GRAB;
+        return startSequence(MOVE_SEQUENCE[currentDirection.ordinal()*4 + desiredDirection.ordinal()]);
     }
 
     private Agent.Action startKillWumpus(AgentDirection currentDirection, int desiredDirection) {
@@ -1079,8 +1140,8 @@ public class MyAI extends Agent
         lastAgentDir = agentDir;
 
         //update location
-        agentX = agentX + options[desiredDirection].xOff;
-        agentY = agentY + options[desiredDirection].yOff;
+        agentX = agentX + xOff[desiredDirection];
+        agentY = agentY + yOff[desiredDirection];
 
         switch(desiredDirection) {
 
@@ -1106,107 +1167,15 @@ public class MyAI extends Agent
         setWumpusProb(agentX, agentY); //when wumpus dies, all squares have Prob(wumpus) = 0
         lastAction = Action.FORWARD;
 
-        switch(currentDirection) {
-
-            case RIGHT:
-                switch(agentDir) {
-                    case RIGHT: // Facing R, go R: {F}
-                        actionSequence.addLast(Action.FORWARD);
-                        return Action.SHOOT;
-
-                    case DOWN: // Facing R, go D: {R -> F}
-                        actionSequence.addLast(Action.SHOOT);
-                        actionSequence.addLast(Action.FORWARD);
-                        return Action.TURN_RIGHT;
-
-                    case LEFT: // Facing R, go L: {L -> L -> F}
-                        actionSequence.addLast(Action.TURN_LEFT);
-                        actionSequence.addLast(Action.SHOOT);
-                        actionSequence.addLast(Action.FORWARD);
-                        return Action.TURN_LEFT;
-
-                    case UP: // Facing R, go U: {L -> F}
-                        actionSequence.addLast(Action.SHOOT);
-                        actionSequence.addLast(Action.FORWARD);
-                        return Action.TURN_LEFT;
-                }
-
-            case DOWN:
-                switch(agentDir) {
-                    case RIGHT: // Facing D, go R: {L -> F}
-                        actionSequence.addLast(Action.SHOOT);
-                        actionSequence.addLast(Action.FORWARD);
-                        return Action.TURN_LEFT;
-
-                    case DOWN: // Facing D, go D: {F}
-                        actionSequence.addLast(Action.FORWARD);
-                        return Action.SHOOT;
-
-                    case LEFT: // Facing D, go L: {R -> F}
-                        actionSequence.addLast(Action.SHOOT);
-                        actionSequence.addLast(Action.FORWARD);
-                        return Action.TURN_RIGHT;
-
-                    case UP: // Facing D, go U: {L -> L -> F}
-                        actionSequence.addLast(Action.TURN_LEFT);
-                        actionSequence.addLast(Action.SHOOT);
-                        actionSequence.addLast(Action.FORWARD);
-                        return Action.TURN_LEFT;
-                }
-
-            case LEFT:
-                switch(agentDir) {
-                    case RIGHT: // Facing L, go R: {L -> L -> F}
-                        actionSequence.addLast(Action.TURN_LEFT);
-                        actionSequence.addLast(Action.SHOOT);
-                        actionSequence.addLast(Action.FORWARD);
-                        return Action.TURN_LEFT;
-
-                    case DOWN: // Facing L, go D: {L -> F}
-                        actionSequence.addLast(Action.SHOOT);
-                        actionSequence.addLast(Action.FORWARD);
-                        return Action.TURN_LEFT;
-
-                    case LEFT: // Facing L, go L: {F}
-                        actionSequence.addLast(Action.FORWARD);
-                        return Action.SHOOT;
-
-                    case UP: // Facing L, go U: {R -> F}
-                        actionSequence.addLast(Action.SHOOT);
-                        actionSequence.addLast(Action.FORWARD);
-                        return Action.TURN_RIGHT;
-                }
+        return startSequence(KILL_SEQUENCE[currentDirection.ordinal()*4 + desiredDirection]);
+    }
 
-            case UP:
-                switch(agentDir) {
-                    case RIGHT: // Facing U, go R: {R -> F}
-                        actionSequence.addLast(Action.SHOOT);
-                        actionSequence.addLast(Action.FORWARD);
-                        return Action.TURN_RIGHT;
-
-                    case DOWN: // Facing U, go D: {L -> L -> F}
-                        actionSequence.addLast(Action.TURN_LEFT);
-                        actionSequence.addLast(Action.SHOOT);
-                        actionSequence.addLast(Action.FORWARD);
-                        return Action.TURN_LEFT;
-
-                    case LEFT: // Facing U, go L: {L -> F}
-                        actionSequence.addLast(Action.SHOOT);
-                        actionSequence.addLast(Action.FORWARD);
-                        return Action.TURN_LEFT;
-
-                    case UP: // Facing U, go U: {F}
-                        actionSequence.addLast(Action.FORWARD);
-                        return Action.SHOOT;
-                }
-        }
+    //queue all but the first action of a maneuver and return the first
+    private Agent.Action startSequence(Action[] sequence){
 
-        agentX = lastAgentX;
-        agentY = lastAgentY;
-        agentDir = lastAgentDir;
+        for(int i = 1; i < sequence.length; i++) actionSequence.add(sequence[i]);
 
-        lastAction = Action.SHOOT;
-        return Action.SHOOT;
+        return sequence[0];
     }
 
     //The following two methods are for debugging
@@ -1217,9 +1186,8 @@ public class MyAI extends Agent
 
         for(int i = DFSqueue.size()-1; i >= 0; i--){
 
-            Node node = new Node(0, 0);
-            node = DFSqueue.get(i);
-            System.out.print("(" + node.x + ", " + node.y + ") ");
+            int cell = DFSqueue.get(i);
+            System.out.print("(" + cell % maxDimension + ", " + cell / maxDimension + ") ");
         }
 
         System.out.print("\n");
@@ -1228,21 +1196,19 @@ public class MyAI extends Agent
     private void printTile(int x, int y) {
 
         System.out.print("(" + x + ", " + y + "):");
-        System.out.print(" visitedNum " + board[x][y].visitedNum);
-        System.out.print(", pitProb " + board[x][y].pitProb);
-        System.out.print(", wumpusProb " + board[x][y].wumpusProb);
+        System.out.print(" visitedNum " + visitedNum[cell(x, y)]);
+        System.out.print(", pitProb " + pitProb[cell(x, y)]);
+        System.out.print(", wumpusProb " + wumpusProb[cell(x, y)]);
         System.out.print("\n");
     }
 
-    private void printAStarPath(AStarPath a){
+    private void printAStarPath(){
 
-        System.out.println("dir: " + agentDir + " f: " + a.f + " g: " + a.g + " h: " + a.h);
+        System.out.println("dir: " + agentDir + " goal: (" + nextGoal.x + ", " + nextGoal.y + ")");
 
-        Node node_1;
-        for(int j = 0; j < a.path.size(); j++){ //j = 0 is the current node
+        for(int j = pathLength - 1; j >= 0; j--){
 
-            node_1 = a.path.get(j);
-            System.out.print("(" + node_1.x + ", " + node_1.y + ") ");
+            System.out.print("(" + pathToGoal[j] % maxDimension + ", " + pathToGoal[j] / maxDimension + ") ");
         }
 
         System.out.print("\n");
@@ -44,4 +44,26 @@ abstract class Agent
 		boolean scream
 	);
 	
+	// Puts the agent back in the state it was constructed in, so that
+	// World can reuse it for another game. Agents that remember anything
+	// between moves must override this.
+	public void reset ( )
+	{
+	}
+	
+	// Seeds the agent's random choices, so that the same seed always
+	// gives the same game. World calls it before every game; agents that
+	// make random choices must override this.
+	public void setSeed ( long seed )
+	{
+	}
+	
+	// A copy of the agent in the middle of a game, which plays on
+	// without affecting this one: given the same percepts, both make
+	// the same moves. Agents that can be copied must override this.
+	public Agent fork ( )
+	{
+		throw new UnsupportedOperationException ( getClass().getName() + " cannot be forked" );
+	}
+	
 }
@@ -0,0 +1,441 @@
+// ======================================================================
+// FILE:        Benchmark.java
+//
+// DESCRIPTION: This file contains the benchmark suite, which measures
+//              how fast the engine and the agents are. It covers:
+//
+//              - action/<agent>/<size>:    latency of one getAction call
+//              - game/<agent>/<size>:      full games per second
+//              - rollout/<size>:           actions per second of the
+//                                          MonteCarloAI's simulator
+//              - construct/<how>/<size>:   building a World from a file,
+//                                          from a WorldSpec, by reset,
+//                                          or from a world pack
+//
+//              for every board size from 4x4 to 7x7. Every benchmark is
+//              warmed up first and then measured over several timed
+//              iterations, like JMH does.
+//
+// NOTES:       - Syntax:
+//
+//                	Benchmark [Options] [Filter]
+//
+//                  Options:
+//                      -q Quick mode: one short warmup and measurement
+//                         iteration, for smoke tests.
+//
+//                  Filter: A regular expression; only benchmarks whose
+//                          name contains a match are run.
+//
+//              - MyAI.java and MyAI_AStar.java both define MyAI, so the
+//                A* agent is measured from its own build, see
+//                'make bench-astar'. The system property bench.agent
+//                only changes the name used in the report.
+//
+//              - JMH cannot generate harness code for classes in the
+//                default package, which is where the game lives, hence
+//                this small harness instead.
+// ======================================================================
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+public class Benchmark
+{
+	// ===============================================================
+	// =						Declarations
+	// ===============================================================
+
+	private static final int	NUM_OF_WORLDS = 1024;	// Distinct worlds cycled through per size
+	private static final long	SEED          = 42;		// Seed of the benchmark worlds
+
+	private static int		warmupIterations      = 3;
+	private static int		measurementIterations = 5;
+	private static long		iterationMillis       = 1000;
+
+	private static volatile long sink;		// Keeps results alive, so the JIT cannot drop the work
+
+	// One benchmark: every call to op() does some work and returns how
+	// many operations it did
+	private static abstract class Bench
+	{
+		final String name;
+		final String unit;
+
+		Bench ( String _name, String _unit )
+		{
+			name = _name;
+			unit = _unit;
+		}
+
+		void setUp ( ) throws Exception
+		{
+		}
+
+		abstract long op ( ) throws Exception;
+
+		// Time to report instead of the wall-clock time, or -1
+		long measuredNanos ( )
+		{
+			return -1;
+		}
+
+		void resetMeasuredNanos ( )
+		{
+		}
+	}
+
+	// ===============================================================
+	// =						Entry Point
+	// ===============================================================
+
+	public static void main ( String[] args ) throws Exception
+	{
+		String filter = "";
+
+		for ( String arg : args )
+		{
+			if ( arg.equals ( "-q" ) )
+			{
+				warmupIterations      = 1;
+				measurementIterations = 1;
+				iterationMillis       = 200;
+			}
+			else
+			{
+				filter = arg;
+			}
+		}
+
+		String agentName = System.getProperty ( "bench.agent", "MyAI" );
+		Pattern pattern  = Pattern.compile ( filter );
+
+		List<Bench> benches = new ArrayList<Bench>();
+		for ( int size = 4; size <= 7; ++size )
+		{
+			WorldSpec[] specs = generate ( size, size );
+
+			benches.add ( actionBench ( agentName, specs ) );
+			benches.add ( gameBench ( agentName, specs, false ) );
+			benches.add ( gameBench ( "RandomAI", specs, true ) );
+			benches.add ( rolloutBench ( specs ) );
+			benches.add ( fileBench ( specs ) );
+			benches.add ( specBench ( specs ) );
+			benches.add ( resetBench ( specs ) );
+			benches.add ( packBench ( specs ) );
+		}
+
+		System.out.printf ( "%-28s %5s %4s %14s    %10s  %s%n", "Benchmark", "Mode", "Cnt", "Score", "Error", "Units" );
+
+		for ( Bench bench : benches )
+			if ( pattern.matcher ( bench.name ).find() )
+				measure ( bench );
+
+		if ( sink == 42 )
+			System.out.println();
+	}
+
+	// ===============================================================
+	// =					Harness Functions
+	// ===============================================================
+
+	private static void measure ( Bench bench ) throws Exception
+	{
+		bench.setUp();
+
+		for ( int i = 0; i < warmupIterations; ++i )
+			iteration ( bench );
+
+		double[] scores = new double[measurementIterations];
+		for ( int i = 0; i < measurementIterations; ++i )
+			scores[i] = iteration ( bench );
+
+		double sum = 0;
+		for ( double score : scores )
+			sum += score;
+		double avg = sum / scores.length;
+
+		double squares = 0;
+		for ( double score : scores )
+			squares += ( score - avg ) * ( score - avg );
+		double stdev = scores.length > 1 ? Math.sqrt ( squares / ( scores.length - 1 ) ) : 0;
+
+		String mode = bench.unit.startsWith ( "ops" ) ? "thrpt" : "avgt";
+		System.out.printf ( "%-28s %5s %4d %14.3f +- %10.3f  %s%n", bench.name, mode, scores.length, avg, stdev, bench.unit );
+	}
+
+	// Runs the benchmark for one iteration; returns ops/s or ns/op
+	private static double iteration ( Bench bench ) throws Exception
+	{
+		long ops      = 0;
+		bench.resetMeasuredNanos();
+
+		long start    = System.nanoTime();
+		long deadline = start + iterationMillis * 1000000L;
+		long now;
+		do
+		{
+			ops += bench.op();
+			now  = System.nanoTime();
+		}
+		while ( now < deadline );
+
+		sink += ops;
+
+		long nanos = bench.measuredNanos() >= 0 ? bench.measuredNanos() : now - start;
+		if ( bench.unit.startsWith ( "ops" ) )
+			return ops / ( nanos / 1e9 );
+		return (double) nanos / Math.max ( 1, ops );
+	}
+
+	// ===============================================================
+	// =					Benchmark Functions
+	// ===============================================================
+
+	// Latency of the agent's getAction, timed around every call
+	private static Bench actionBench ( final String agentName, final WorldSpec[] specs ) throws Exception
+	{
+		return new Bench ( "action/" + agentName + "/" + size ( specs ), "ns/op" )
+		{
+			TimedAgent agent;
+			World      world;
+			int        index;
+
+			void setUp ( ) throws Exception
+			{
+				agent = new TimedAgent ( new MyAI() );
+				world = new World ( false, false, false, specs[0] );
+			}
+
+			long op ( )
+			{
+				agent.reset();
+				world.reset ( specs[index++ & ( NUM_OF_WORLDS - 1 )], agent );
+				sink += world.run();
+				return agent.calls;
+			}
+
+			long measuredNanos ( )
+			{
+				return agent.nanos;
+			}
+
+			void resetMeasuredNanos ( )
+			{
+				if ( agent != null )
+					agent.nanos = 0;
+			}
+		};
+	}
+
+	// Full games per second
+	private static Bench gameBench ( String agentName, final WorldSpec[] specs, final boolean randomAI ) throws Exception
+	{
+		return new Bench ( "game/" + agentName + "/" + size ( specs ), "ops/s" )
+		{
+			World world;
+			int   index;
+
+			void setUp ( ) throws Exception
+			{
+				world = new World ( false, randomAI, false, specs[0] );
+			}
+
+			long op ( )
+			{
+				world.reset ( specs[index++ & ( NUM_OF_WORLDS - 1 )] );
+				sink += world.run();
+				return 1;
+			}
+		};
+	}
+
+	// Simulated actions per second: one MonteCarloAI rollout of a whole
+	// game per op
+	private static Bench rolloutBench ( final WorldSpec[] specs ) throws Exception
+	{
+		return new Bench ( "rollout/" + size ( specs ), "ops/s" )
+		{
+			MonteCarloAI.Simulator simulator;
+			MonteCarloAI.State     start;
+			int                    index;
+
+			void setUp ( ) throws Exception
+			{
+				simulator = new MonteCarloAI.Simulator();
+				start     = new MonteCarloAI.State();
+			}
+
+			long op ( )
+			{
+				simulator.load ( specs[index++ & ( NUM_OF_WORLDS - 1 )] );
+				simulator.start ( start );
+				long steps = simulator.getSteps();
+				sink += simulator.rollout ( start, -1, -1 );
+				return simulator.getSteps() - steps;
+			}
+		};
+	}
+
+	// World construction from a world file
+	private static Bench fileBench ( final WorldSpec[] specs ) throws Exception
+	{
+		return new Bench ( "construct/file/" + size ( specs ), "ops/s" )
+		{
+			File[] files;
+			int    index;
+
+			void setUp ( ) throws Exception
+			{
+				File folder = createTempFolder();
+				files = new File[NUM_OF_WORLDS];
+				for ( int i = 0; i < NUM_OF_WORLDS; ++i )
+				{
+					files[i] = new File ( folder, "world_" + i + ".txt" );
+					files[i].deleteOnExit();
+					WorldPack.writeText ( specs[i], files[i] );
+				}
+			}
+
+			long op ( ) throws Exception
+			{
+				World world = new World ( false, false, false, files[index++ & ( NUM_OF_WORLDS - 1 )] );
+				sink += world.hashCode();
+				return 1;
+			}
+		};
+	}
+
+	// World construction from an in-memory spec
+	private static Bench specBench ( final WorldSpec[] specs ) throws Exception
+	{
+		return new Bench ( "construct/spec/" + size ( specs ), "ops/s" )
+		{
+			int index;
+
+			long op ( ) throws Exception
+			{
+				World world = new World ( false, false, false, specs[index++ & ( NUM_OF_WORLDS - 1 )] );
+				sink += world.hashCode();
+				return 1;
+			}
+		};
+	}
+
+	// Reusing one World for another spec
+	private static Bench resetBench ( final WorldSpec[] specs ) throws Exception
+	{
+		return new Bench ( "construct/reset/" + size ( specs ), "ops/s" )
+		{
+			World world;
+			int   index;
+
+			void setUp ( ) throws Exception
+			{
+				world = new World ( false, false, false, specs[0] );
+			}
+
+			long op ( )
+			{
+				world.reset ( specs[index++ & ( NUM_OF_WORLDS - 1 )] );
+				return 1;
+			}
+		};
+	}
+
+	// Reading a world pack into one reused World
+	private static Bench packBench ( final WorldSpec[] specs ) throws Exception
+	{
+		return new Bench ( "construct/pack/" + size ( specs ), "ops/s" )
+		{
+			WorldPack        pack;
+			WorldPack.Cursor cursor;
+			WorldSpec        spec;
+			World            world;
+
+			void setUp ( ) throws Exception
+			{
+				File packFile = File.createTempFile ( "benchmark", ".wpk" );
+				packFile.deleteOnExit();
+				WorldPack.write ( Arrays.asList ( specs ).iterator(), packFile );
+
+				pack   = WorldPack.open ( packFile );
+				cursor = pack.cursor();
+				spec   = new WorldSpec();
+				world  = new World ( false, false, false, specs[0] );
+			}
+
+			long op ( )
+			{
+				if ( !cursor.hasNext() )
+					cursor = pack.cursor();
+				cursor.next ( spec );
+				world.reset ( spec );
+				return 1;
+			}
+		};
+	}
+
+	// ===============================================================
+	// =					Helper Functions
+	// ===============================================================
+
+	// Wraps an agent and times every getAction call
+	private static class TimedAgent extends Agent
+	{
+		private final Agent agent;
+		long calls;
+		long nanos;
+
+		TimedAgent ( Agent _agent )
+		{
+			agent = _agent;
+		}
+
+		public Action getAction ( boolean stench, boolean breeze, boolean glitter, boolean bump, boolean scream )
+		{
+			long start = System.nanoTime();
+			Action action = agent.getAction ( stench, breeze, glitter, bump, scream );
+			nanos += System.nanoTime() - start;
+			++calls;
+			return action;
+		}
+
+		public void reset ( )
+		{
+			agent.reset();
+			calls = 0;
+		}
+
+		public void setSeed ( long seed )
+		{
+			agent.setSeed ( seed );
+		}
+	}
+
+	private static WorldSpec[] generate ( int colDimension, int rowDimension )
+	{
+		WorldGenerator generator = new WorldGenerator ( SEED );
+		WorldSpec[] specs = new WorldSpec[NUM_OF_WORLDS];
+		for ( int i = 0; i < NUM_OF_WORLDS; ++i )
+			specs[i] = generator.generate ( i, colDimension, rowDimension );
+		return specs;
+	}
+
+	private static String size ( WorldSpec[] specs )
+	{
+		return specs[0].getColDimension() + "x" + specs[0].getRowDimension();
+	}
+
+	private static File createTempFolder ( ) throws Exception
+	{
+		File folder = File.createTempFile ( "benchmark", "" );
+		if ( !folder.delete() || !folder.mkdir() )
+			throw new Exception ( "Failed to create directory: " + folder );
+		folder.deleteOnExit();
+		return folder;
+	}
+}
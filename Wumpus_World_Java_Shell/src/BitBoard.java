@@ -0,0 +1,246 @@
+// ======================================================================
+// FILE:        BitBoard.java
+//
+// DESCRIPTION: This file contains the bit board class, which is the
+//              Board World plays on for stored layouts. Instead of one Tile object
+//              per square, every feature (pit, Wumpus, gold, breeze,
+//              stench) is a layer of bits, one bit per tile. Boards up
+//              to 8x8 fit in a single long per layer.
+//
+// NOTES:       - Tile (c, r) is bit r * colDimension + c, the same as in
+//                WorldSpec, so a spec's pits can be copied word by word.
+//
+//              - The layers are reused when a board is loaded again
+//                with a size that fits, so reloading does not allocate.
+//
+//              - A copy shares the pit and breeze layers, which never
+//                change during a game, until either board is loaded
+//                again.
+// ======================================================================
+
+import java.util.Arrays;
+
+public class BitBoard implements Board
+{
+	// ===============================================================
+	// =						Declarations
+	// ===============================================================
+
+	private int		colDimension;	// The number of columns the game board has
+	private int		rowDimension;	// The number of rows the game board has
+	private int		words;			// The number of longs used per layer
+
+	private long[]	pit;			// Pit layer
+	private long[]	wumpus;			// Wumpus layer
+	private long[]	gold;			// Gold layer
+	private long[]	breeze;			// Breeze layer
+	private long[]	stench;			// Stench layer
+	private boolean	shared;			// If true, a copy reads the pit and breeze layers too
+
+	// ===============================================================
+	// =						Constructors
+	// ===============================================================
+
+	public BitBoard ( int _colDimension, int _rowDimension )
+	{
+		pit    = new long[1];
+		wumpus = new long[1];
+		gold   = new long[1];
+		breeze = new long[1];
+		stench = new long[1];
+		clear ( _colDimension, _rowDimension );
+	}
+
+	private BitBoard ( BitBoard other )
+	{
+		colDimension = other.colDimension;
+		rowDimension = other.rowDimension;
+		words        = other.words;
+		pit          = other.pit;
+		breeze       = other.breeze;
+		wumpus       = other.wumpus.clone();
+		gold         = other.gold.clone();
+		stench       = other.stench.clone();
+		shared       = true;
+		other.shared = true;
+	}
+
+	// ===============================================================
+	// =					Board Functions
+	// ===============================================================
+
+	// Empties the board and sets new dimensions, of at most
+	// WorldSpec.MAX_TILES tiles
+	public void clear ( int _colDimension, int _rowDimension )
+	{
+		if ( (long) _colDimension * _rowDimension > WorldSpec.MAX_TILES )
+			throw new IllegalArgumentException ( "Too many tiles for a bit board: " + _colDimension + "x" + _rowDimension );
+
+		colDimension = _colDimension;
+		rowDimension = _rowDimension;
+		words        = (int) ( ( (long) colDimension * rowDimension + 63 ) >>> 6 );
+
+		if ( shared )
+		{
+			pit    = new long[pit.length];
+			breeze = new long[breeze.length];
+			shared = false;
+		}
+
+		if ( pit.length < words )
+		{
+			pit    = new long[words];
+			wumpus = new long[words];
+			gold   = new long[words];
+			breeze = new long[words];
+			stench = new long[words];
+		}
+		else
+		{
+			Arrays.fill ( pit,    0, words, 0L );
+			Arrays.fill ( wumpus, 0, words, 0L );
+			Arrays.fill ( gold,   0, words, 0L );
+			Arrays.fill ( breeze, 0, words, 0L );
+			Arrays.fill ( stench, 0, words, 0L );
+		}
+	}
+
+	public Board copy ( )
+	{
+		return new BitBoard ( this );
+	}
+
+	// Empties the board and loads the layout of 'spec'
+	public void load ( WorldSpec spec )
+	{
+		clear ( spec.getColDimension(), spec.getRowDimension() );
+
+		for ( int i = 0; i < words; ++i )
+			pit[i] = spec.getPits ( i );
+
+		if ( words == 1 && colDimension < 64 )
+		{
+			breeze[0] = spread ( pit[0] );
+		}
+		else
+		{
+			for ( int r = 0; r < rowDimension; ++r )
+				for ( int c = 0; c < colDimension; ++c )
+					if ( isPit ( c, r ) )
+						addPit ( c, r );
+		}
+
+		addWumpus ( spec.getWumpusC(), spec.getWumpusR() );
+		addGold ( spec.getGoldC(), spec.getGoldR() );
+	}
+
+	public void addPit ( int c, int r )
+	{
+		if ( isInBounds ( c, r ) )
+		{
+			set ( pit, c, r );
+			addPercept ( breeze, c, r );
+		}
+	}
+
+	public void addWumpus ( int c, int r )
+	{
+		if ( isInBounds ( c, r ) )
+		{
+			set ( wumpus, c, r );
+			addPercept ( stench, c, r );
+		}
+	}
+
+	public void addGold ( int c, int r )
+	{
+		if ( isInBounds ( c, r ) )
+			set ( gold, c, r );
+	}
+
+	// The Wumpus' tile keeps a stench after it dies, as in World
+	public void killWumpus ( int c, int r )
+	{
+		clear ( wumpus, c, r );
+		set ( stench, c, r );
+	}
+
+	public void removeGold ( int c, int r )
+	{
+		clear ( gold, c, r );
+	}
+
+	public boolean isInBounds ( int c, int r )
+	{
+		return ( c < colDimension && r < rowDimension && c >= 0 && r >= 0 );
+	}
+
+	// ===============================================================
+	// =					Getter Functions
+	// ===============================================================
+
+	public int getColDimension ( ) { return colDimension; }
+	public int getRowDimension ( ) { return rowDimension; }
+
+	public boolean isPit    ( int c, int r ) { return get ( pit,    c, r ); }
+	public boolean isWumpus ( int c, int r ) { return get ( wumpus, c, r ); }
+	public boolean isGold   ( int c, int r ) { return get ( gold,   c, r ); }
+	public boolean isBreeze ( int c, int r ) { return get ( breeze, c, r ); }
+	public boolean isStench ( int c, int r ) { return get ( stench, c, r ); }
+
+	// True if the tile would kill the agent
+	public boolean isDeadly ( int c, int r )
+	{
+		int  index = r * colDimension + c;
+		long bit   = 1L << index;
+		return ( ( pit[index >>> 6] | wumpus[index >>> 6] ) & bit ) != 0;
+	}
+
+	// ===============================================================
+	// =					Helper Functions
+	// ===============================================================
+
+	private boolean get ( long[] layer, int c, int r )
+	{
+		int index = r * colDimension + c;
+		return ( layer[index >>> 6] & ( 1L << index ) ) != 0;
+	}
+
+	private void set ( long[] layer, int c, int r )
+	{
+		int index = r * colDimension + c;
+		layer[index >>> 6] |= 1L << index;
+	}
+
+	private void clear ( long[] layer, int c, int r )
+	{
+		int index = r * colDimension + c;
+		layer[index >>> 6] &= ~( 1L << index );
+	}
+
+	private void addPercept ( long[] layer, int c, int r )
+	{
+		if ( isInBounds ( c+1, r ) ) set ( layer, c+1, r );
+		if ( isInBounds ( c-1, r ) ) set ( layer, c-1, r );
+		if ( isInBounds ( c, r+1 ) ) set ( layer, c, r+1 );
+		if ( isInBounds ( c, r-1 ) ) set ( layer, c, r-1 );
+	}
+
+	// The tiles next to any set bit of a single-word layer
+	private long spread ( long layer )
+	{
+		long firstCol = 0;
+		for ( int r = 0; r < rowDimension; ++r )
+			firstCol |= 1L << ( r * colDimension );
+
+		long lastCol = firstCol << ( colDimension - 1 );
+		long all     = ( words << 6 == colDimension * rowDimension ) ? -1L : ( 1L << ( colDimension * rowDimension ) ) - 1;
+
+		long spread = ( ( layer & ~lastCol ) << 1 )
+					| ( ( layer & ~firstCol ) >>> 1 )
+					| ( layer << colDimension )
+					| ( layer >>> colDimension );
+
+		return spread & all;
+	}
+}
@@ -0,0 +1,39 @@
+// ======================================================================
+// FILE:        Board.java
+//
+// DESCRIPTION: This file contains the board interface, which is the
+//              game board World plays on: what is on every tile, and
+//              the two changes a game can make to it. BitBoard stores
+//              every tile of the board; ProceduralBoard stores none and
+//              works them out from the world's seed, for boards far too
+//              big to store.
+//
+// NOTES:       - Tiles outside the board hold nothing.
+// ======================================================================
+
+public interface Board
+{
+	// Starts a new game on the layout of 'spec'
+	void load ( WorldSpec spec );
+
+	// A copy of the board as it stands, e.g. mid-game; changes to either
+	// do not show on the other
+	Board copy ( );
+
+	int getColDimension ( );
+	int getRowDimension ( );
+
+	boolean isPit    ( int c, int r );
+	boolean isWumpus ( int c, int r );
+	boolean isGold   ( int c, int r );
+	boolean isBreeze ( int c, int r );
+	boolean isStench ( int c, int r );
+
+	// True if the tile would kill the agent
+	boolean isDeadly ( int c, int r );
+
+	// The Wumpus' tile keeps a stench after it dies
+	void killWumpus ( int c, int r );
+
+	void removeGold ( int c, int r );
+}
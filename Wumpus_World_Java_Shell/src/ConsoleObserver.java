@@ -0,0 +1,216 @@
+// ======================================================================
+// FILE:        ConsoleObserver.java
+//
+// DESCRIPTION: This file contains the console observer class, which
+//              renders the game board and the agent's state before every
+//              move, the way debug mode always has. The output goes to
+//              any PrintStream, and pausing for ENTER is optional, so a
+//              trace can be written to a file without touching stdin.
+//
+// NOTES:       - World attaches one of these itself in debug and manual
+//                mode; anything else can attach its own with
+//                World.setObserver.
+// ======================================================================
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+
+public class ConsoleObserver implements WorldObserver
+{
+	// ===============================================================
+	// =						Declarations
+	// ===============================================================
+	
+	private static final int	VIEW = 33;		// The most tiles of a board side that get printed
+	
+	private final PrintStream	out;			// Where the world info goes
+	private final InputStream	pauseInput;		// If not null, waits for ENTER on it before every move
+	private final boolean		printGameOver;	// If true, prints the world once more when the game ends
+	
+	// ===============================================================
+	// =						Constructors
+	// ===============================================================
+	
+	public ConsoleObserver ( PrintStream _out )
+	{
+		this ( _out, null, true );
+	}
+	
+	public ConsoleObserver ( PrintStream _out, InputStream _pauseInput, boolean _printGameOver )
+	{
+		out           = _out;
+		pauseInput    = _pauseInput;
+		printGameOver = _printGameOver;
+	}
+	
+	// ===============================================================
+	// =					Observer Functions
+	// ===============================================================
+	
+	public void beforeAction ( World world )
+	{
+		printWorldInfo ( world );
+		
+		if ( pauseInput != null )
+		{
+			out.println("Press ENTER to continue...");
+			try
+			{
+				pauseInput.read();
+			}
+			catch (IOException ioe)
+			{
+			}
+		}
+	}
+	
+	// Like debug mode always has, the final board is not shown when
+	// the game is cut off at -1000
+	public void gameOver ( World world )
+	{
+		if ( printGameOver && world.getOutcome() != World.Outcome.OUT_OF_SCORE )
+			printWorldInfo ( world );
+	}
+	
+	// ===============================================================
+	// =				World Printing Functions
+	// ===============================================================
+	
+	private void printWorldInfo ( World world )
+	{
+		printBoardInfo ( world );
+		printAgentInfo ( world );
+	}
+	
+	// Boards wider or taller than VIEW tiles only show the VIEW x VIEW
+	// tiles around the agent
+	private void printBoardInfo ( World world )
+	{
+		int firstC = viewStart ( world.getAgentX(), world.getColDimension() );
+		int firstR = viewStart ( world.getAgentY(), world.getRowDimension() );
+		int lastC  = Math.min ( world.getColDimension(), firstC + VIEW ) - 1;
+		int lastR  = Math.min ( world.getRowDimension(), firstR + VIEW ) - 1;
+		
+		for ( int r = lastR; r >= firstR; --r )
+		{
+			for ( int c = firstC; c <= lastC; ++c )
+				printTileInfo ( world, c, r );
+			out.println("");
+			out.println("");
+		}
+	}
+
+	private static int viewStart ( int agent, int dimension )
+	{
+		if ( dimension <= VIEW )
+			return 0;
+		return Math.max ( 0, Math.min ( agent - VIEW / 2, dimension - VIEW ) );
+	}
+
+	private void printTileInfo ( World world, int c, int r )
+	{
+		StringBuilder tileString = new StringBuilder();
+		
+		if (world.isPit(c, r))    tileString.append("P");
+		if (world.isWumpus(c, r)) tileString.append("W");
+		if (world.isGold(c, r))   tileString.append("G");
+		if (world.isBreeze(c, r)) tileString.append("B");
+		if (world.isStench(c, r)) tileString.append("S");
+		
+		if ( world.getAgentX() == c && world.getAgentY() == r )
+			tileString.append("@");
+		
+		tileString.append(".");
+		
+		out.printf("%8s", tileString.toString());
+	}
+	
+	private void printAgentInfo ( World world )
+	{
+		out.println("Score: "   + world.getScore());
+		out.println("AgentX: "  + world.getAgentX());
+		out.println("AgentY: "  + world.getAgentY());
+		printDirectionInfo ( world );
+		printActionInfo ( world );
+		printPerceptInfo ( world );
+	}
+	
+	private void printDirectionInfo ( World world )
+	{
+		switch (world.getAgentDir())
+		{
+			case 0:
+				out.println("AgentDir: Right");
+				break;
+				
+			case 1:
+				out.println("AgentDir: Down");
+				break;
+				
+			case 2:
+				out.println("AgentDir: Left");
+				break;
+				
+			case 3:
+				out.println("AgentDir: Up");
+				break;
+				
+			default:
+				out.println("AgentDir: Invalid");
+		}
+	}
+	
+	private void printActionInfo ( World world )
+	{
+		switch (world.getLastAction())
+		{
+			case TURN_LEFT:
+				out.println("Last Action: Turned Left");
+				break;
+				
+			case TURN_RIGHT:
+				out.println("Last Action: Turned Right");
+				break;
+				
+			case FORWARD:
+				out.println("Last Action: Moved Forward");
+				break;
+				
+			case SHOOT:
+				out.println("Last Action: Shot the arrow");
+				break;
+				
+			case GRAB:
+				out.println("Last Action: Grabbed");
+				break;
+				
+			case CLIMB:
+				out.println("Last Action: Climbed");
+				break;
+				
+			default:
+				out.println("Last Action: Invalid");
+		}
+	}
+	
+	private void printPerceptInfo ( World world )
+	{
+		StringBuilder perceptString = new StringBuilder("Percepts: ");
+		
+		if (world.getStench())             perceptString.append("Stench, ");
+		if (world.getBreeze())             perceptString.append("Breeze, ");
+		if (world.getGlitter())            perceptString.append("Glitter, ");
+		if (world.getBump())               perceptString.append("Bump, ");
+		if (world.getScream())             perceptString.append("Scream");
+		
+		if ( perceptString.charAt(perceptString.length()-1) == ' '
+				&& perceptString.charAt(perceptString.length()-2) == ',' )
+		{
+			perceptString.deleteCharAt(perceptString.length()-1);
+			perceptString.deleteCharAt(perceptString.length()-1);
+		}
+		
+		out.println(perceptString.toString());
+	}
+}
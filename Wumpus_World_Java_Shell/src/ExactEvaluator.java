@@ -0,0 +1,397 @@
+// ======================================================================
+// FILE:        ExactEvaluator.java
+//
+// DESCRIPTION: This file contains the exact evaluator, which plays the
+//              agent on every world of one size instead of a sample of
+//              them, and weighs every score by the world's probability
+//              under the generator's distribution. The result is the
+//              agent's exact expected score, so two agents can be told
+//              apart without sampling noise.
+//
+//              A world of n tiles other than (0,0) has 2^n pit layouts
+//              and n * n places for the Wumpus and the gold, e.g. 2^15 *
+//              15 * 15 (about 7.4 million) worlds at 4x4. A layout with
+//              k pits has probability 0.2^k * 0.8^(n-k) = 4^(n-k) / 5^n,
+//              and every place for the Wumpus and the gold 1 / (n * n),
+//              so the expected score is a sum of integers over 5^n * n^2.
+//
+// NOTES:       - Syntax:
+//
+//                	ExactEvaluator [Options] [COLSxROWS]
+//
+//                  Options:
+//                      -r Use the RandomAI instead of MyAI.
+//                      -t Followed by the number of worker threads;
+//                         one per core by default.
+//                      -s Followed by a seed given to the agent in every
+//                         world, instead of one seed per world.
+//                      -n With -s, plays the worlds one by one instead of
+//                         on a PerceptTrie, e.g. to check the trie.
+//
+//                  COLSxROWS: The board size, 4x4 by default. Every
+//                             extra tile doubles the number of layouts.
+//
+//              - The agent's random choices are seeded from the world's
+//                number, or from -s, so a run is reproducible and the
+//                expectation is exact for those seeds.
+//
+//              - An agent whose seed is the same in every world plays
+//                the same moves until its percepts differ, so with -s
+//                the worlds are explored as a PerceptTrie, which calls
+//                the agent once per percept history instead of once per
+//                world. Where histories split, the agent is forked; one
+//                that does not override Agent.fork() is replayed from
+//                the start instead, which grows with the square of the
+//                game's length.
+//
+//              - If the agent throws on any world, the run fails: the
+//                expectation would not be exact without it.
+// ======================================================================
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class ExactEvaluator
+{
+	// ===============================================================
+	// =						Declarations
+	// ===============================================================
+
+	private static final int	MAX_TILES = 30;		// Pit layouts are ints, one bit per tile
+	private static final int	BLOCK     = 256;	// Pit layouts per task
+
+	private final int		colDimension;	// The number of columns of every world
+	private final int		rowDimension;	// The number of rows of every world
+	private final int		tiles;			// The tiles other than (0,0)
+	private final int		threads;		// Number of worker threads
+	private final boolean	randomAI;		// If true, uses the RandomAI instead of MyAI
+	private final Long		agentSeed;		// The seed of the agent in every world; null for one seed per world
+	private final boolean	trie;			// If true, explores the worlds as a PerceptTrie
+
+	private final ThreadLocal<World> worlds = new ThreadLocal<World>();	// Every worker replays its own World
+
+	// Results of the last run
+	private Tally		tally;			// What the worlds added up to
+	private BigInteger	totalWeight;	// Sum of every world's weight, 5^n * n^2
+
+	// ===============================================================
+	// =						Constructors
+	// ===============================================================
+
+	public ExactEvaluator ( int _colDimension, int _rowDimension, int _threads, boolean _randomAI )
+	{
+		this ( _colDimension, _rowDimension, _threads, _randomAI, null, false );
+	}
+
+	// With an agent seed, the worlds are explored as a PerceptTrie unless
+	// 'oneByOne' is set
+	public ExactEvaluator ( int _colDimension, int _rowDimension, int _threads, boolean _randomAI, Long _agentSeed, boolean oneByOne )
+	{
+		long numOfTiles = (long) _colDimension * _rowDimension - 1;
+		if ( _colDimension < 1 || _rowDimension < 1 || numOfTiles < 1 || numOfTiles > MAX_TILES )
+			throw new IllegalArgumentException ( "Invalid world dimensions: " + _colDimension + "x" + _rowDimension );
+
+		colDimension = _colDimension;
+		rowDimension = _rowDimension;
+		tiles        = (int) numOfTiles;
+		threads      = Math.max ( 1, _threads );
+		randomAI     = _randomAI;
+		agentSeed    = _agentSeed;
+		trie         = _agentSeed != null && !oneByOne;
+
+		if ( trie && tiles > PerceptTrie.MAX_TILES )
+			throw new IllegalArgumentException ( "Too many worlds for a PerceptTrie: " + _colDimension + "x" + _rowDimension );
+	}
+
+	// ===============================================================
+	// =						Entry Point
+	// ===============================================================
+
+	public static void main ( String[] args ) throws Exception
+	{
+		boolean randomAI     = false;
+		boolean oneByOne     = false;
+		Long    agentSeed    = null;
+		int     threads      = Runtime.getRuntime().availableProcessors();
+		int     colDimension = 4;
+		int     rowDimension = 4;
+
+		for ( int i = 0; i < args.length; ++i )
+		{
+			if ( args[i].equals ( "-r" ) )
+			{
+				randomAI = true;
+			}
+			else if ( args[i].equals ( "-t" ) && i+1 < args.length )
+			{
+				threads = Integer.parseInt ( args[++i] );
+			}
+			else if ( args[i].equals ( "-s" ) && i+1 < args.length )
+			{
+				agentSeed = Long.parseLong ( args[++i] );
+			}
+			else if ( args[i].equals ( "-n" ) )
+			{
+				oneByOne = true;
+			}
+			else
+			{
+				String[] sizes = args[i].split ( "x" );
+				if ( sizes.length != 2 )
+				{
+					System.out.println ( "[ERROR] Invalid board size: " + args[i] );
+					return;
+				}
+				colDimension = Integer.parseInt ( sizes[0] );
+				rowDimension = Integer.parseInt ( sizes[1] );
+			}
+		}
+
+		ExactEvaluator evaluator = new ExactEvaluator ( colDimension, rowDimension, threads, randomAI, agentSeed, oneByOne );
+
+		long start = System.nanoTime();
+		evaluator.run();
+		double seconds = ( System.nanoTime() - start ) / 1e9;
+
+		System.out.println ( "Worlds: " + evaluator.getNumOfGames() + " (" + colDimension + "x" + rowDimension + ")" );
+		System.out.println ( "The agent's expected score: " + evaluator.getExpectedScore ( new MathContext ( 12 ) ) );
+		System.out.println ( "The agent's standard deviation: " + evaluator.getStandardDeviation() );
+		System.out.println ( "Exactly: " + evaluator.getScoreSum() + " / " + evaluator.getTotalWeight() );
+		System.out.println ( "Outcomes:" );
+		for ( World.Outcome outcome : World.Outcome.values() )
+			if ( outcome != World.Outcome.NONE )
+				System.out.printf ( "\t%-20s  %.6f%%%n", outcome, 100 * evaluator.getProbability ( outcome ) );
+		System.out.printf ( "getAction calls: %d (%.2f per world)%n", evaluator.getNumOfActions(), (double) evaluator.getNumOfActions() / evaluator.getNumOfGames() );
+		System.out.printf ( "Time: %.1f s (%.0f games/s)%n", seconds, evaluator.getNumOfGames() / seconds );
+	}
+
+	// ===============================================================
+	// =					Evaluation Functions
+	// ===============================================================
+
+	// Plays every world once and adds up the weighted results
+	public void run ( ) throws Exception
+	{
+		tally       = new Tally();
+		totalWeight = BigInteger.valueOf ( 5 ).pow ( tiles ).multiply ( BigInteger.valueOf ( (long) tiles * tiles ) );
+
+		int numOfLayouts = 1 << tiles;
+
+		ExecutorService pool = Executors.newFixedThreadPool ( threads );
+		try
+		{
+			// A trie shares more work the more worlds it holds, so it
+			// gets one block per thread
+			int blockSize = trie ? ( numOfLayouts + threads - 1 ) / threads : BLOCK;
+
+			List<Future<Tally>> blocks = new ArrayList<Future<Tally>>();
+			for ( int first = 0; first < numOfLayouts; first += blockSize )
+			{
+				int last = Math.min ( numOfLayouts, first + blockSize );
+				blocks.add ( pool.submit ( trie ? new TrieBlock ( first, last ) : new Block ( first, last ) ) );
+			}
+
+			for ( Future<Tally> future : blocks )
+			{
+				try
+				{
+					tally.add ( future.get() );
+				}
+				catch ( ExecutionException e )
+				{
+					throw ( e.getCause() instanceof Exception ) ? (Exception) e.getCause() : e;
+				}
+			}
+		}
+		finally
+		{
+			pool.shutdownNow();
+		}
+	}
+
+	// ===============================================================
+	// =					Getter Functions
+	// ===============================================================
+
+	public BigInteger getScoreSum ( )		{ return tally.getScoreSum(); }
+	public BigInteger getTotalWeight ( )	{ return totalWeight; }
+	public long getNumOfGames ( )			{ return tally.numOfGames; }
+	public long getNumOfActions ( )			{ return tally.numOfActions; }
+
+	public BigDecimal getExpectedScore ( MathContext precision )
+	{
+		return new BigDecimal ( getScoreSum() ).divide ( new BigDecimal ( totalWeight ), precision );
+	}
+
+	public double getStandardDeviation ( )
+	{
+		double mean = getExpectedScore ( MathContext.DECIMAL64 ).doubleValue();
+		return Math.sqrt ( Math.max ( 0, tally.squareSum / totalWeight.doubleValue() - mean * mean ) );
+	}
+
+	public double getProbability ( World.Outcome outcome )
+	{
+		return tally.outcomeWeight[outcome.ordinal()] / totalWeight.doubleValue();
+	}
+
+	// ===============================================================
+	// =					Helper Functions
+	// ===============================================================
+
+	// The weight of a pit layout of n tiles, 4^(n-k) for k pits
+	static long weight ( int tiles, int layout )
+	{
+		return 1L << ( 2 * ( tiles - Integer.bitCount ( layout ) ) );
+	}
+
+	// The seed World gives the agent of a world with seed 'seed'
+	static long agentSeedOf ( long seed )
+	{
+		return new Random ( seed ).nextLong();
+	}
+
+	// Weighted sums over a set of worlds. The score sum is kept exact
+	// in 128 bits, which is faster than a BigInteger per world.
+	static class Tally
+	{
+		private long	scoreHigh;		// High 64 bits of the sum of score * weight
+		private long	scoreLow;		// Low 64 bits of the sum of score * weight
+		double			squareSum;		// Sum of score^2 * weight
+		double[]		outcomeWeight = new double[World.Outcome.values().length];
+		long			numOfGames;
+		long			numOfActions;	// Calls to getAction
+
+		// 'games' worlds of total weight 'weight' that all ended with
+		// 'score' and 'outcome'
+		void add ( long score, World.Outcome outcome, long weight, long games )
+		{
+			addScore ( Math.multiplyHigh ( score, weight ), score * weight );
+			squareSum += (double) score * score * weight;
+			outcomeWeight[outcome.ordinal()] += weight;
+			numOfGames += games;
+		}
+
+		void addActions ( long actions )
+		{
+			numOfActions += actions;
+		}
+
+		void add ( Tally other )
+		{
+			addScore ( other.scoreHigh, other.scoreLow );
+			squareSum    += other.squareSum;
+			numOfGames   += other.numOfGames;
+			numOfActions += other.numOfActions;
+			for ( int i = 0; i < outcomeWeight.length; ++i )
+				outcomeWeight[i] += other.outcomeWeight[i];
+		}
+
+		BigInteger getScoreSum ( )
+		{
+			return BigInteger.valueOf ( scoreHigh ).shiftLeft ( 64 )
+					.add ( BigInteger.valueOf ( scoreLow >>> 1 ).shiftLeft ( 1 ) )
+					.add ( BigInteger.valueOf ( scoreLow & 1 ) );
+		}
+
+		private void addScore ( long high, long low )
+		{
+			long sum = scoreLow + low;
+			scoreHigh += high + ( Long.compareUnsigned ( sum, scoreLow ) < 0 ? 1 : 0 );
+			scoreLow   = sum;
+		}
+	}
+
+	// The pit layouts [first, last), played world by world on whichever
+	// worker picks them up
+	private class Block implements Callable<Tally>
+	{
+		private final int	first;
+		private final int	last;
+
+		Block ( int _first, int _last )
+		{
+			first = _first;
+			last  = _last;
+		}
+
+		public Tally call ( ) throws Exception
+		{
+			WorldSpec spec  = new WorldSpec ( colDimension, rowDimension );
+			Tally     tally = new Tally();
+
+			for ( int layout = first; layout < last; ++layout )
+				for ( int wumpus = 0; wumpus < tiles; ++wumpus )
+					for ( int gold = 0; gold < tiles; ++gold )
+					{
+						load ( spec, layout, wumpus, gold );
+
+						World world = play ( spec );
+						tally.add ( world.getScore(), world.getOutcome(), weight ( tiles, layout ), 1 );
+						tally.addActions ( world.getSteps() );
+					}
+
+			return tally;
+		}
+
+		// Tile i is the i-th tile after (0,0), row by row, like the
+		// generator's; the world's number seeds the agent, unless -s did
+		private void load ( WorldSpec spec, int layout, int wumpus, int gold )
+		{
+			spec.reset ( colDimension, rowDimension );
+
+			for ( int i = 0; i < tiles; ++i )
+				if ( ( layout & ( 1 << i ) ) != 0 )
+					spec.addPit ( ( i+1 ) % colDimension, ( i+1 ) / colDimension );
+
+			spec.setWumpus ( ( wumpus+1 ) % colDimension, ( wumpus+1 ) / colDimension );
+			spec.setGold ( ( gold+1 ) % colDimension, ( gold+1 ) / colDimension );
+			spec.setSeed ( agentSeed != null ? agentSeed : ( (long) layout * tiles + wumpus ) * tiles + gold );
+		}
+
+		private World play ( WorldSpec spec ) throws Exception
+		{
+			World world = worlds.get();
+			if ( world == null )
+			{
+				world = new World ( false, randomAI, false, spec );
+				worlds.set ( world );
+			}
+			else
+			{
+				world.reset ( spec );
+			}
+
+			world.run();
+			return world;
+		}
+	}
+
+	// The pit layouts [first, last), explored as one PerceptTrie
+	private class TrieBlock implements Callable<Tally>
+	{
+		private final int	first;
+		private final int	last;
+
+		TrieBlock ( int _first, int _last )
+		{
+			first = _first;
+			last  = _last;
+		}
+
+		public Tally call ( )
+		{
+			Agent       agent = randomAI ? new RandomAI() : new MyAI();
+			PerceptTrie trie  = new PerceptTrie ( colDimension, rowDimension, agent, agentSeedOf ( agentSeed ) );
+			return trie.explore ( first, last );
+		}
+	}
+}
@@ -0,0 +1,138 @@
+// ======================================================================
+// FILE:        GameMetrics.java
+//
+// DESCRIPTION: This file contains the game metrics class, which collects
+//              where the time and the actions of a run go:
+//
+//              - the latency of every Agent.getAction call
+//              - the latency of every World.run call
+//              - how often each Agent.Action is taken
+//              - the number of steps per game
+//              - how games end: gold, climbed out, pit, Wumpus, or the
+//                -1000 score cutoff
+//              - how often the gold was found
+//
+//              Attach one to a World with World.setMetrics; one object
+//              may be shared by every World of a parallel run, since
+//              everything it records is lock-free.
+//
+// NOTES:       - Latencies are in nanoseconds.
+// ======================================================================
+
+import java.util.concurrent.atomic.LongAdder;
+
+public class GameMetrics
+{
+	// ===============================================================
+	// =						Declarations
+	// ===============================================================
+
+	private final LatencyHistogram	actionLatency = new LatencyHistogram();	// getAction calls
+	private final LatencyHistogram	gameLatency   = new LatencyHistogram();	// run calls
+	private final LatencyHistogram	steps         = new LatencyHistogram();	// Actions per game
+
+	private final LongAdder[]		actions;		// Actions taken, by Agent.Action
+	private final LongAdder[]		outcomes;		// Games ended, by World.Outcome
+	private final LongAdder			goldFound;		// Games in which the gold was grabbed
+
+	// ===============================================================
+	// =						Constructors
+	// ===============================================================
+
+	public GameMetrics ( )
+	{
+		actions = new LongAdder[Agent.Action.values().length];
+		for ( int i = 0; i < actions.length; ++i )
+			actions[i] = new LongAdder();
+
+		outcomes = new LongAdder[World.Outcome.values().length];
+		for ( int i = 0; i < outcomes.length; ++i )
+			outcomes[i] = new LongAdder();
+
+		goldFound = new LongAdder();
+	}
+
+	// ===============================================================
+	// =					Recording Functions
+	// ===============================================================
+
+	public void recordAction ( Agent.Action action, long nanos )
+	{
+		actionLatency.record ( nanos );
+		actions[action.ordinal()].increment();
+	}
+
+	// Called once the game on 'world' is over
+	public void recordGame ( World world, long nanos )
+	{
+		gameLatency.record ( nanos );
+		steps.record ( world.getSteps() );
+		outcomes[world.getOutcome().ordinal()].increment();
+		if ( world.isGoldLooted() )
+			goldFound.increment();
+	}
+
+	// ===============================================================
+	// =					Getter Functions
+	// ===============================================================
+
+	public LatencyHistogram getActionLatency ( )	{ return actionLatency; }
+	public LatencyHistogram getGameLatency ( )		{ return gameLatency; }
+	public LatencyHistogram getSteps ( )			{ return steps; }
+
+	public long getNumOfGames ( )
+	{
+		return gameLatency.getCount();
+	}
+
+	public long getNumOfActions ( Agent.Action action )
+	{
+		return actions[action.ordinal()].sum();
+	}
+
+	public long getNumOfOutcomes ( World.Outcome outcome )
+	{
+		return outcomes[outcome.ordinal()].sum();
+	}
+
+	public long getNumOfGoldFound ( )
+	{
+		return goldFound.sum();
+	}
+
+	// ===============================================================
+	// =					Export Functions
+	// ===============================================================
+
+	// Everything recorded so far, as text
+	public String snapshot ( )
+	{
+		long games        = getNumOfGames();
+		long totalActions = 0;
+		for ( LongAdder count : actions )
+			totalActions += count.sum();
+
+		StringBuilder out = new StringBuilder();
+		out.append ( "Games: " ).append ( games ).append ( '\n' );
+		out.append ( "Gold found: " ).append ( countAndShare ( getNumOfGoldFound(), games ) ).append ( '\n' );
+
+		out.append ( "Outcomes:\n" );
+		for ( World.Outcome outcome : World.Outcome.values() )
+			if ( outcome != World.Outcome.NONE )
+				out.append ( String.format ( "\t%-22s", outcome ) ).append ( countAndShare ( getNumOfOutcomes ( outcome ), games ) ).append ( '\n' );
+
+		out.append ( "Actions:\n" );
+		for ( Agent.Action action : Agent.Action.values() )
+			out.append ( String.format ( "\t%-22s", action ) ).append ( countAndShare ( getNumOfActions ( action ), totalActions ) ).append ( '\n' );
+
+		out.append ( "Steps per game:        " ).append ( steps.summary() ).append ( '\n' );
+		out.append ( "getAction latency (ns): " ).append ( actionLatency.summary() ).append ( '\n' );
+		out.append ( "Game latency (ns):      " ).append ( gameLatency.summary() ).append ( '\n' );
+		return out.toString();
+	}
+
+	private static String countAndShare ( long count, long total )
+	{
+		return String.format ( "%d (%.2f%%)", count, total == 0 ? 0.0 : 100.0 * count / total );
+	}
+}
@@ -0,0 +1,68 @@
+// ======================================================================
+// FILE:        InstrumentedAgent.java
+//
+// DESCRIPTION: This file contains the instrumented agent class, which
+//              wraps another agent and records the latency and the
+//              chosen action of every getAction call in a GameMetrics.
+//              The wrapped agent does not know it is being measured.
+// ======================================================================
+
+public class InstrumentedAgent extends Agent
+{
+	// ===============================================================
+	// =						Declarations
+	// ===============================================================
+
+	private final Agent			agent;		// The agent being measured
+	private final GameMetrics	metrics;	// Where the measurements go
+
+	// ===============================================================
+	// =						Constructors
+	// ===============================================================
+
+	public InstrumentedAgent ( Agent _agent, GameMetrics _metrics )
+	{
+		agent   = _agent;
+		metrics = _metrics;
+	}
+
+	// ===============================================================
+	// =					Agent Functions
+	// ===============================================================
+
+	public Action getAction
+	(
+		boolean stench,
+		boolean breeze,
+		boolean glitter,
+		boolean bump,
+		boolean scream
+	)
+	{
+		long   start  = System.nanoTime();
+		Action action = agent.getAction ( stench, breeze, glitter, bump, scream );
+		metrics.recordAction ( action, System.nanoTime() - start );
+		return action;
+	}
+
+	public void reset ( )
+	{
+		agent.reset();
+	}
+
+	public void setSeed ( long seed )
+	{
+		agent.setSeed ( seed );
+	}
+
+	// The copy is measured into the same metrics
+	public Agent fork ( )
+	{
+		return new InstrumentedAgent ( agent.fork(), metrics );
+	}
+
+	public Agent getAgent ( )
+	{
+		return agent;
+	}
+}
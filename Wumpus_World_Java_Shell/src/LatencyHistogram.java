@@ -0,0 +1,143 @@
+// ======================================================================
+// FILE:        LatencyHistogram.java
+//
+// DESCRIPTION: This file contains the latency histogram class, a small
+//              lock-free histogram in the style of HdrHistogram. Values
+//              below 128 get a bucket each; above that, every power of
+//              two is split into 64 buckets, so any recorded value is
+//              off by less than 1.6% while the whole range of a long
+//              fits in a few thousand counters.
+//
+//              Any number of threads may record at once; recording is
+//              one atomic increment plus two LongAdder updates.
+//
+// NOTES:       - Percentiles read the counters while others may still be
+//                recording, so a snapshot taken during a run is only
+//                approximately consistent. Take it after the run.
+//
+//              - Negative values are recorded as 0.
+// ======================================================================
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+public class LatencyHistogram
+{
+	// ===============================================================
+	// =						Declarations
+	// ===============================================================
+
+	private static final int SUB_BITS    = 6;					// log2 of the buckets per power of two
+	private static final int SUB_BUCKETS = 1 << SUB_BITS;		// Buckets per power of two
+	private static final int NUM_BUCKETS = ( 64 - SUB_BITS ) * SUB_BUCKETS + SUB_BUCKETS;
+
+	private final AtomicLongArray	counts = new AtomicLongArray ( NUM_BUCKETS );
+	private final LongAdder			count  = new LongAdder();	// Number of recorded values
+	private final LongAdder			sum    = new LongAdder();	// Sum of the recorded values
+	private final AtomicLong		max    = new AtomicLong();	// Largest recorded value
+
+	// ===============================================================
+	// =					Recording Functions
+	// ===============================================================
+
+	public void record ( long value )
+	{
+		if ( value < 0 )
+			value = 0;
+
+		counts.incrementAndGet ( bucketOf ( value ) );
+		count.increment();
+		sum.add ( value );
+
+		long largest = max.get();
+		while ( value > largest && !max.compareAndSet ( largest, value ) )
+			largest = max.get();
+	}
+
+	public void reset ( )
+	{
+		for ( int i = 0; i < NUM_BUCKETS; ++i )
+			counts.set ( i, 0 );
+		count.reset();
+		sum.reset();
+		max.set ( 0 );
+	}
+
+	// ===============================================================
+	// =					Getter Functions
+	// ===============================================================
+
+	public long getCount ( )
+	{
+		return count.sum();
+	}
+
+	public long getMax ( )
+	{
+		return max.get();
+	}
+
+	public double getMean ( )
+	{
+		long n = count.sum();
+		return n == 0 ? 0 : (double) sum.sum() / n;
+	}
+
+	// The smallest value that at least 'percentile' percent of the
+	// recorded values are less than or equal to, within the bucket error
+	public long getValueAtPercentile ( double percentile )
+	{
+		long n = count.sum();
+		if ( n == 0 )
+			return 0;
+
+		long rank = Math.max ( 1, (long) Math.ceil ( percentile / 100.0 * n ) );
+		long seen = 0;
+		for ( int i = 0; i < NUM_BUCKETS; ++i )
+		{
+			seen += counts.get ( i );
+			if ( seen >= rank )
+				return Math.min ( highestValueIn ( i ), max.get() );
+		}
+		return max.get();
+	}
+
+	// Count, mean, percentiles and max on one line
+	public String summary ( )
+	{
+		return String.format
+		(
+			"count=%d mean=%.1f p50=%d p90=%d p99=%d p99.9=%d max=%d",
+			getCount(), getMean(),
+			getValueAtPercentile ( 50 ), getValueAtPercentile ( 90 ),
+			getValueAtPercentile ( 99 ), getValueAtPercentile ( 99.9 ),
+			getMax()
+		);
+	}
+
+	// ===============================================================
+	// =					Helper Functions
+	// ===============================================================
+
+	// Values below 2 * SUB_BUCKETS map to themselves; above that the
+	// top SUB_BITS+1 bits of the value pick the bucket
+	private static int bucketOf ( long value )
+	{
+		if ( value < 2 * SUB_BUCKETS )
+			return (int) value;
+
+		int shift = 63 - Long.numberOfLeadingZeros ( value ) - SUB_BITS;
+		return shift * SUB_BUCKETS + (int) ( value >>> shift );
+	}
+
+	private static long highestValueIn ( int bucket )
+	{
+		if ( bucket < 2 * SUB_BUCKETS )
+			return bucket;
+
+		int  shift = bucket / SUB_BUCKETS - 1;
+		long sub   = bucket - (long) shift * SUB_BUCKETS;
+		return ( ( sub + 1 ) << shift ) - 1;
+	}
+}
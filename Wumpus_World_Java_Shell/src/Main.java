@@ -12,30 +12,66 @@
 //
 // NOTES:       - Syntax:
 //
-//                	Wumpus_World [Options] [InputFile] [OutputFile]
+//                	Wumpus_World [Options] [InputFile] [ResultsFile] [OutputFile]
 //
 //                  Options:
 //						-m Use the ManualAI instead of MyAI.
 //						-r Use the RandomAI instead of MyAI.
+//                      -c Use the MonteCarloAI instead of MyAI. It runs
+//                         its rollouts on every core, so it turns -p off.
 //                      -d Debug mode, which displays the game board
 //                         after every mode. Useless with -m.
 //                      -h Displays help menu and quits.
 //                      -v Verbose mode displays world file names before
 //                         loading them.
 //                      -f treats the InputFile as a folder containing
-//                         worlds. This will trigger the program to
+//                         worlds, or as a world pack (see WorldPack).
+//                         This will trigger the program to
 //                         display the average score and standard
 //                         deviation instead of a single score. InputFile
 //                         must be entered with this option.
+//                      -p Runs the worlds of the folder in parallel, one
+//                         worker thread per core. Useless without -f,
+//                         and turned off by -d and -m.
+//                      -g Generates the worlds in memory instead of
+//                         reading them from a folder. InputFile is then
+//                         COUNTxCOLSxROWS[:SEED], e.g. 10000x4x4:42, or
+//                         tournament[:SEED] for the tournament mix of
+//                         sizes. Displays the average score and standard
+//                         deviation like -f. Prefixing procedural: to
+//                         COUNTxCOLSxROWS works the pits out from the
+//                         seed as the agent reaches them, for boards too
+//                         big to store, e.g. procedural:10x1000000x1000000.
+//                      -l Logs every world of -f or -g to ResultsFile
+//                         as it finishes: one tab-separated line with
+//                         the world, score, steps, outcome and time (see
+//                         ResultsWriter). A world that fails is logged
+//                         as ERROR instead of ending the run. If
+//                         ResultsFile already exists, the run resumes:
+//                         the worlds in it are skipped, but still count
+//                         towards the average. The file names its worlds
+//                         (the spec and seed of -g, or the path of -f),
+//                         and is only resumed by a run on the same ones;
+//                         -g without a seed picks one and records it.
+//                      -i Instruments the run: times every getAction
+//                         and every game, counts the actions and how
+//                         the games ended, and displays a snapshot of
+//                         it all at the end (see GameMetrics).
 //
 //                  InputFile: A path to a valid Wumpus World File, or
-//                             folder with -f. This is optional unless
-//                             used with -f or OutputFile.
+//                             folder with -f, or a world spec with -g.
+//                             This is optional unless used with -f, -g
+//                             or OutputFile.
+//
+//                  ResultsFile: A path to the per-world results file.
+//                               It is required with -l, and only
+//                               given with -l.
 //
 //                  OutputFile: A path to a file where the results will
 //                              be written. This is optional.
 //
 //              - If -m and -r are turned on, -m will be turned off.
+//                If -c is turned on with either, -c will be turned off.
 //
 //              - Don't make changes to this file.
 // ======================================================================
@@ -44,6 +80,9 @@ import java.io.FileWriter;
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.stream.Stream;
 
 public class Main
 {
@@ -70,8 +109,14 @@ public class Main
 		boolean verbose      = false;
 		boolean randomAI     = false;
 		boolean manualAI      = false;
+		boolean monteCarloAI = false;
 		boolean folder       = false;
+		boolean parallel     = false;
+		boolean generate     = false;
+		boolean log          = false;
+		boolean instrument   = false;
 		String	worldFile    = "";
+		String	resultsFile  = "";
 		String	outputFile   = "";
 		String 	firstToken 	 = args[0];
 
@@ -96,6 +141,26 @@ public class Main
 						verbose = true;
 						break;
 						
+					case 'p':
+					case 'P':
+						parallel = true;
+						break;
+						
+					case 'g':
+					case 'G':
+						generate = true;
+						break;
+						
+					case 'l':
+					case 'L':
+						log = true;
+						break;
+						
+					case 'i':
+					case 'I':
+						instrument = true;
+						break;
+						
 					case 'r':
 					case 'R':
 						randomAI = true;
@@ -106,6 +171,11 @@ public class Main
 						manualAI = true;
 						break;
 						
+					case 'c':
+					case 'C':
+						monteCarloAI = true;
+						break;
+						
 					case 'd':
 					case 'D':
 						debug = true;
@@ -114,23 +184,57 @@ public class Main
 					case 'h':
 					case 'H':
 					default:
-						System.out.println ( "Wumpus_World [Options] [InputFile] [OutputFile]" );
+						System.out.println ( "Wumpus_World [Options] [InputFile] [ResultsFile] [OutputFile]" );
 						System.out.println ( );
 						System.out.println ( "Options:" );
 						System.out.println ( "\t-m Use the ManualAI instead of MyAI." );
 						System.out.println ( "\t-r Use the RandomAI instead of MyAI." );
+						System.out.println ( "\t-c Use the MonteCarloAI instead of MyAI. It runs" );
+						System.out.println ( "\t   its rollouts on every core, so it turns -p off." );
 						System.out.println ( "\t-d Debug mode, which displays the game board" );
 						System.out.println ( "\t   after every mode. Useless with -m." );
 						System.out.println ( "\t-h Displays help menu and quits." );
 						System.out.println ( "\t-f treats the InputFile as a folder containing" );
-						System.out.println ( "\t   worlds. This will trigger the program to" );
+						System.out.println ( "\t   worlds, or as a world pack (see WorldPack)." );
+						System.out.println ( "\t   This will trigger the program to" );
 						System.out.println ( "\t   display the average score and standard" );
 						System.out.println ( "\t   deviation instead of a single score. InputFile" );
 						System.out.println ( "\t   must be entered with this option." );
+						System.out.println ( "\t-p Runs the worlds of the folder in parallel, one" );
+						System.out.println ( "\t   worker thread per core. Useless without -f," );
+						System.out.println ( "\t   and turned off by -d and -m." );
+						System.out.println ( "\t-g Generates the worlds in memory instead of" );
+						System.out.println ( "\t   reading them from a folder. InputFile is then" );
+						System.out.println ( "\t   COUNTxCOLSxROWS[:SEED], e.g. 10000x4x4:42, or" );
+						System.out.println ( "\t   tournament[:SEED] for the tournament mix of" );
+						System.out.println ( "\t   sizes. Displays the average score and standard" );
+						System.out.println ( "\t   deviation like -f. Prefixing procedural: to" );
+						System.out.println ( "\t   COUNTxCOLSxROWS works the pits out from the" );
+						System.out.println ( "\t   seed as the agent reaches them, for boards too" );
+						System.out.println ( "\t   big to store, e.g. procedural:10x1000000x1000000." );
+						System.out.println ( "\t-l Logs every world of -f or -g to ResultsFile" );
+						System.out.println ( "\t   as it finishes: one tab-separated line with" );
+						System.out.println ( "\t   the world, score, steps, outcome and time." );
+						System.out.println ( "\t   A world that fails is logged as ERROR instead" );
+						System.out.println ( "\t   of ending the run. If ResultsFile already" );
+						System.out.println ( "\t   exists, the run resumes: the worlds in it are" );
+						System.out.println ( "\t   skipped, but still count towards the average." );
+						System.out.println ( "\t   Only a run on the same worlds resumes it: the" );
+						System.out.println ( "\t   file's first line names them, with the seed -g" );
+						System.out.println ( "\t   picked if none was given." );
+						System.out.println ( "\t-i Instruments the run: times every getAction" );
+						System.out.println ( "\t   and every game, counts the actions and how" );
+						System.out.println ( "\t   the games ended, and displays a snapshot of" );
+						System.out.println ( "\t   it all at the end." );
 						System.out.println ( );
 						System.out.println ( "InputFile: A path to a valid Wumpus World File, or" );
-						System.out.println ( "           folder with -f. This is optional unless" );
-						System.out.println ( "           used with -f." );
+						System.out.println ( "           folder with -f, or a world spec with -g." );
+						System.out.println ( "           This is optional unless used with -f, -g" );
+						System.out.println ( "           or OutputFile." );
+						System.out.println ( );
+						System.out.println ( "ResultsFile: A path to the per-world results file." );
+						System.out.println ( "             It is required with -l, and only" );
+						System.out.println ( "             given with -l." );
 						System.out.println ( );
 						System.out.println ( "OutputFile: A path to a file where the results will" );
 						System.out.println ( "            be written. This is optional." );
@@ -146,10 +250,46 @@ public class Main
 				System.out.println ( "[WARNING] Manual AI and Random AI both on; Manual AI was turned off." );
 			}
 			
-			if ( args.length >= 2 )
-				worldFile = args[1];
-			if ( args.length >= 3 )
-				outputFile = args[2];
+			if ( monteCarloAI && ( randomAI || manualAI ) )
+			{
+				monteCarloAI = false;
+				System.out.println ( "[WARNING] Monte Carlo AI on with another AI; Monte Carlo AI was turned off." );
+			}
+			
+			if ( parallel && monteCarloAI )
+			{
+				// The agent already keeps every core busy with its rollouts
+				parallel = false;
+				System.out.println ( "[WARNING] Parallel mode does not support the Monte Carlo AI; Parallel mode was turned off." );
+			}
+			
+			if ( parallel && ( debug || manualAI ) )
+			{
+				// Debug and manual mode need the console for one world at a time
+				parallel = false;
+				System.out.println ( "[WARNING] Parallel mode does not support debug or manual mode; Parallel mode was turned off." );
+			}
+			
+			if ( log && !folder && !generate )
+			{
+				// Only a set of worlds has anything to log
+				log = false;
+				System.out.println ( "[WARNING] Logging needs -f or -g; Logging was turned off." );
+			}
+			
+			int argIndex = 1;
+			if ( args.length > argIndex )
+				worldFile = args[argIndex++];
+			if ( log && args.length > argIndex )
+				resultsFile = args[argIndex++];
+			if ( args.length > argIndex )
+				outputFile = args[argIndex++];
+			
+			if ( log && resultsFile == "" )
+			{
+				System.out.println ( "[ERROR] No results file specified." );
+				return;
+			}
 		}
 		else
 		{
@@ -159,13 +299,20 @@ public class Main
 				outputFile = args[1];
 		}
 		
+		GameMetrics metrics = instrument ? new GameMetrics() : null;
+		
 		if ( worldFile == "" )
 		{
 			if ( folder )
 				System.out.println( "[WARNING] No folder specified; running on a random world." );
+			if ( generate )
+				System.out.println( "[WARNING] No world spec specified; running on a random world." );
 			try
 			{
 				World world = new World ( debug, randomAI, manualAI );
+				if ( monteCarloAI )
+					world.setAgent ( new MonteCarloAI() );
+				world.setMetrics ( metrics );
 				int score = world.run();
 				System.out.println ( "The agent scored: " + score );
 			}
@@ -173,6 +320,105 @@ public class Main
 			{
 				e.printStackTrace();
 			}
+			printMetrics ( metrics );
+			return;
+		}
+		
+		if ( generate || ( folder && WorldPack.isPack ( new File ( worldFile ) ) ) )
+		{
+			Stream<WorldSpec> worlds = null;
+			
+			if ( generate )
+			{
+				// Fix the seed here, so that a results file can record
+				// exactly which worlds it holds
+				worldFile = withSeed ( worldFile );
+				try
+				{
+					worlds = generateWorlds ( worldFile, verbose );
+				}
+				catch ( IllegalArgumentException e )
+				{
+					System.out.println ( "[ERROR] " + e.getMessage() );
+					return;
+				}
+				
+				if ( worlds == null )
+				{
+					System.out.println ( "[ERROR] Invalid world spec." );
+					return;
+				}
+			}
+			else
+			{
+				try
+				{
+					worlds = WorldPack.open ( new File ( worldFile ) ).worlds();
+				}
+				catch ( IOException e )
+				{
+					System.out.println ( "[ERROR] Failed to open world pack." );
+					return;
+				}
+			}
+			
+			if ( log )
+			{
+				logWorlds ( worlds, null, worldSet ( generate, worldFile ), resultsFile, debug, randomAI, manualAI, monteCarloAI, parallel, verbose, metrics, outputFile );
+				return;
+			}
+			
+			int		numOfScores        = 0;
+			double	sumOfScores        = 0;
+			double	sumOfScoresSquared = 0;
+			
+			try
+			{
+				if ( parallel )
+				{
+					int[] scores = new ParallelRunner ( randomAI, verbose, metrics ).run ( worlds );
+					
+					for ( int worldIndex = 0; worldIndex < scores.length; worldIndex++ )
+					{
+						int score = scores[worldIndex];
+						numOfScores += 1;
+						sumOfScores += score;
+						sumOfScoresSquared += score*score;
+					}
+				}
+				else
+				{
+					Iterator<WorldSpec> specs = worlds.iterator();
+					World world = null;
+					while ( specs.hasNext() )
+					{
+						// Reuse the board and the agent for every world
+						if ( world == null )
+						{
+							world = new World ( debug, randomAI, manualAI, specs.next() );
+							if ( monteCarloAI )
+								world.setAgent ( new MonteCarloAI() );
+							world.setMetrics ( metrics );
+						}
+						else
+							world.reset ( specs.next() );
+						int score = world.run();
+						
+						numOfScores += 1;
+						sumOfScores += score;
+						sumOfScoresSquared += score*score;
+					}
+				}
+			}
+			catch ( Exception e )
+			{
+				numOfScores = 0;
+				sumOfScores = 0;
+				sumOfScoresSquared = 0;
+			}
+			
+			printSummary ( numOfScores, sumOfScores, sumOfScoresSquared, outputFile );
+			printMetrics ( metrics );
 			return;
 		}
 		
@@ -187,68 +433,70 @@ public class Main
 				return;
 			}
 			
+			if ( log )
+			{
+				logWorlds ( null, listOfWorlds, worldSet ( false, worldFile ), resultsFile, debug, randomAI, manualAI, monteCarloAI, parallel, verbose, metrics, outputFile );
+				return;
+			}
+			
 			int		numOfScores        = 0;
 			double	sumOfScores        = 0;
 			double	sumOfScoresSquared = 0;
 
-			for ( int worldIndex = 0; worldIndex < listOfWorlds.length; worldIndex++ )
+			if ( parallel )
 			{
-				if ( verbose )
-					System.out.println ( "Running world: " + listOfWorlds[worldIndex] );
-				
-				int score = 0;
 				try
 				{
-					World world = new World ( debug, randomAI, manualAI, listOfWorlds[worldIndex] );
-					score = world.run();
+					int[] scores = new ParallelRunner ( randomAI, verbose, metrics ).run ( listOfWorlds );
+					
+					// Merge in folder order, so the sums match the sequential loop
+					for ( int worldIndex = 0; worldIndex < scores.length; worldIndex++ )
+					{
+						int score = scores[worldIndex];
+						numOfScores += 1;
+						sumOfScores += score;
+						sumOfScoresSquared += score*score;
+					}
 				}
 				catch ( Exception e )
 				{
 					numOfScores = 0;
 					sumOfScores = 0;
 					sumOfScoresSquared = 0;
-					break;
 				}
-
-				numOfScores += 1;
-				sumOfScores += score;
-				sumOfScoresSquared += score*score;
-			}
-			double avg = (float)sumOfScores / (float)numOfScores;
-			double std_dev = Math.sqrt ( (sumOfScoresSquared - ((sumOfScores*sumOfScores) / (float)numOfScores) ) / (float)numOfScores );
-			if ( outputFile == "" )
-			{
-				System.out.println ( "The agent's average score: " + avg );
-				System.out.println ( "The agent's standard deviation: " + std_dev );
 			}
 			else
 			{
-				BufferedWriter out = null;
-				try
-				{
-					FileWriter fstream = new FileWriter ( outputFile );
-					out = new BufferedWriter ( fstream );
-					out.write ( "SCORE: " + avg + '\n' );
-					out.write ( "STDEV: " + std_dev );
-				}
-				catch ( Exception e )
-				{
-					System.out.println ( "[ERROR] Failure to write to output file." );
-				}
-				finally
+				for ( int worldIndex = 0; worldIndex < listOfWorlds.length; worldIndex++ )
 				{
+					if ( verbose )
+						System.out.println ( "Running world: " + listOfWorlds[worldIndex] );
+				
+					int score = 0;
 					try
 					{
-						if ( out != null )
-						{
-							out.close();
-						}
+						World world = new World ( debug, randomAI, manualAI, listOfWorlds[worldIndex] );
+						if ( monteCarloAI )
+							world.setAgent ( new MonteCarloAI() );
+						world.setMetrics ( metrics );
+						score = world.run();
 					}
-					catch ( IOException ioe )
+					catch ( Exception e )
 					{
+						numOfScores = 0;
+						sumOfScores = 0;
+						sumOfScoresSquared = 0;
+						break;
 					}
+
+					numOfScores += 1;
+					sumOfScores += score;
+					sumOfScoresSquared += score*score;
 				}
 			}
+			
+			printSummary ( numOfScores, sumOfScores, sumOfScoresSquared, outputFile );
+			printMetrics ( metrics );
 			return;
 		}
 		
@@ -268,6 +516,9 @@ public class Main
 		try
 		{
 			World world = new World ( debug, randomAI, manualAI, worldFileObject );
+			if ( monteCarloAI )
+				world.setAgent ( new MonteCarloAI() );
+			world.setMetrics ( metrics );
 			score = world.run();
 		}
 		catch ( Exception e )
@@ -307,5 +558,261 @@ public class Main
 				}
 			}
 		}
+		
+		printMetrics ( metrics );
+	}
+	
+	// Displays or writes the average score and standard deviation
+	private static void printSummary ( int numOfScores, double sumOfScores, double sumOfScoresSquared, String outputFile )
+	{
+		double avg = (float)sumOfScores / (float)numOfScores;
+		double std_dev = Math.sqrt ( (sumOfScoresSquared - ((sumOfScores*sumOfScores) / (float)numOfScores) ) / (float)numOfScores );
+		if ( outputFile == "" )
+		{
+			System.out.println ( "The agent's average score: " + avg );
+			System.out.println ( "The agent's standard deviation: " + std_dev );
+		}
+		else
+		{
+			BufferedWriter out = null;
+			try
+			{
+				FileWriter fstream = new FileWriter ( outputFile );
+				out = new BufferedWriter ( fstream );
+				out.write ( "SCORE: " + avg + '\n' );
+				out.write ( "STDEV: " + std_dev );
+			}
+			catch ( Exception e )
+			{
+				System.out.println ( "[ERROR] Failure to write to output file." );
+			}
+			finally
+			{
+				try
+				{
+					if ( out != null )
+					{
+						out.close();
+					}
+				}
+				catch ( IOException ioe )
+				{
+				}
+			}
+		}
+	}
+	
+	// Runs a stream of worlds or a folder of worlds, logging every world
+	// to the results file, then displays or writes the summary of every
+	// world in the file
+	private static void logWorlds ( Stream<WorldSpec> worlds, File[] listOfWorlds, String worldSet, String resultsFile, boolean debug,
+			boolean randomAI, boolean manualAI, boolean monteCarloAI, boolean parallel, boolean verbose, GameMetrics metrics,
+			String outputFile )
+	{
+		ResultsWriter results;
+		try
+		{
+			results = ResultsWriter.open ( new File ( resultsFile ), worldSet );
+		}
+		catch ( IOException e )
+		{
+			System.out.println ( "[ERROR] Failure to open results file: " + e.getMessage() );
+			return;
+		}
+		
+		if ( results.getNumOfRecorded() > 0 )
+			System.out.println ( "Resuming after " + results.getNumOfRecorded() + " worlds in " + resultsFile + "." );
+		
+		try
+		{
+			if ( parallel )
+			{
+				if ( worlds != null )
+					new ParallelRunner ( randomAI, verbose, metrics ).run ( worlds, results );
+				else
+					new ParallelRunner ( randomAI, verbose, metrics ).run ( listOfWorlds, results );
+			}
+			else if ( worlds != null )
+			{
+				Iterator<WorldSpec> specs = worlds.iterator();
+				World world = null;
+				for ( long worldIndex = 0; specs.hasNext(); ++worldIndex )
+				{
+					WorldSpec spec = specs.next();
+					String    name = Long.toString ( worldIndex );
+					if ( results.isRecorded ( name ) )
+						continue;
+					
+					WorldResult result;
+					long start = System.nanoTime();
+					try
+					{
+						// Reuse the board and the agent for every world
+						if ( world == null )
+						{
+							world = new World ( debug, randomAI, manualAI, spec );
+							if ( monteCarloAI )
+								world.setAgent ( new MonteCarloAI() );
+							world.setMetrics ( metrics );
+						}
+						else
+							world.reset ( spec );
+						world.run();
+						result = new WorldResult ( name, world, System.nanoTime() - start );
+					}
+					catch ( Exception e )
+					{
+						result = new WorldResult ( name, e, System.nanoTime() - start );
+					}
+					results.record ( result );
+				}
+			}
+			else
+			{
+				for ( int worldIndex = 0; worldIndex < listOfWorlds.length; worldIndex++ )
+				{
+					String name = listOfWorlds[worldIndex].toString();
+					if ( results.isRecorded ( name ) )
+						continue;
+					
+					if ( verbose )
+						System.out.println ( "Running world: " + listOfWorlds[worldIndex] );
+					
+					WorldResult result;
+					long start = System.nanoTime();
+					try
+					{
+						World world = new World ( debug, randomAI, manualAI, listOfWorlds[worldIndex] );
+						if ( monteCarloAI )
+							world.setAgent ( new MonteCarloAI() );
+						world.setMetrics ( metrics );
+						world.run();
+						result = new WorldResult ( name, world, System.nanoTime() - start );
+					}
+					catch ( Exception e )
+					{
+						result = new WorldResult ( name, e, System.nanoTime() - start );
+					}
+					results.record ( result );
+				}
+			}
+		}
+		catch ( Exception e )
+		{
+			System.out.println ( "[ERROR] Failure to write to results file: " + e.getMessage() );
+		}
+		finally
+		{
+			try
+			{
+				results.close();
+			}
+			catch ( IOException ioe )
+			{
+				System.out.println ( "[ERROR] Failure to write to results file: " + ioe.getMessage() );
+			}
+		}
+		
+		if ( results.getNumOfErrors() > 0 )
+			System.out.println ( "[WARNING] " + results.getNumOfErrors() + " worlds failed; see " + resultsFile + "." );
+		
+		printSummary ( results.getNumOfScores(), results.getSumOfScores(), results.getSumOfScoresSquared(), outputFile );
+		printMetrics ( metrics );
+	}
+	
+	// Displays the snapshot of an instrumented run
+	private static void printMetrics ( GameMetrics metrics )
+	{
+		if ( metrics == null )
+			return;
+		
+		System.out.println ( "Metrics:" );
+		System.out.print ( metrics.snapshot() );
+	}
+	
+	// The name a results file records its worlds under: the world spec
+	// with its seed, or the path of the folder or world pack
+	private static String worldSet ( boolean generate, String worldFile )
+	{
+		if ( generate )
+			return "-g " + worldFile;
+		
+		try
+		{
+			return "-f " + new File ( worldFile ).getCanonicalPath();
+		}
+		catch ( IOException e )
+		{
+			return "-f " + new File ( worldFile ).getAbsolutePath();
+		}
+	}
+	
+	// The world spec with a random seed added if it has none, so that
+	// it always names the same worlds
+	private static String withSeed ( String worldSpec )
+	{
+		String spec = worldSpec.regionMatches ( true, 0, "procedural:", 0, 11 ) ? worldSpec.substring ( 11 ) : worldSpec;
+		if ( spec.indexOf ( ':' ) >= 0 )
+			return worldSpec;
+		return worldSpec + ":" + new Random().nextLong();
+	}
+	
+	// Parses [procedural:]COUNTxCOLSxROWS[:SEED] or tournament[:SEED];
+	// null if invalid. Throws IllegalArgumentException, naming the spec,
+	// for a board too big to store, which only procedural: can play.
+	private static Stream<WorldSpec> generateWorlds ( String worldSpec, boolean verbose )
+	{
+		String original = worldSpec;
+		boolean procedural = worldSpec.regionMatches ( true, 0, "procedural:", 0, 11 );
+		if ( procedural )
+			worldSpec = worldSpec.substring ( 11 );
+		
+		String[] tokens = worldSpec.split ( ":" );
+		if ( tokens.length > 2 )
+			return null;
+		
+		try
+		{
+			long seed = ( tokens.length == 2 ) ? Long.parseLong ( tokens[1] ) : new Random().nextLong();
+			WorldGenerator generator = new WorldGenerator ( seed );
+			Stream<WorldSpec> worlds;
+			
+			if ( !procedural && tokens[0].equalsIgnoreCase ( "tournament" ) )
+			{
+				worlds = generator.tournamentSet();
+			}
+			else
+			{
+				String[] sizes = tokens[0].split ( "x" );
+				if ( sizes.length != 3 )
+					return null;
+				
+				long count        = Long.parseLong ( sizes[0] );
+				int  colDimension = Integer.parseInt ( sizes[1] );
+				int  rowDimension = Integer.parseInt ( sizes[2] );
+				
+				if ( count < 0 || colDimension < 1 || rowDimension < 1 || (long) colDimension * rowDimension < 2 )
+					return null;
+				
+				if ( !procedural && (long) colDimension * rowDimension > WorldSpec.MAX_TILES )
+					throw new IllegalArgumentException ( "The world spec " + original + " has "
+						+ (long) colDimension * rowDimension + " tiles, more than the " + WorldSpec.MAX_TILES
+						+ " a stored board holds. Use procedural:" + original + " to work the pits out as the agent reaches them." );
+				
+				if ( procedural )
+					worlds = generator.proceduralWorlds ( count, colDimension, rowDimension );
+				else
+					worlds = generator.worlds ( count, colDimension, rowDimension );
+			}
+			
+			if ( verbose )
+				System.out.println ( "Generating worlds with seed: " + seed );
+			
+			return worlds;
+		}
+		catch ( NumberFormatException e )
+		{
+			return null;
+		}
 	}
 }
\ No newline at end of file
@@ -0,0 +1,941 @@
+// ======================================================================
+// FILE:        MonteCarloAI.java
+//
+// DESCRIPTION: This file contains the Monte Carlo agent, which plays
+//              like a careful human until it runs out of safe tiles,
+//              and then decides what to risk by simulation. It explores
+//              every tile it can prove safe, grabs the gold, and goes
+//              home. When no unvisited tile is safe, it samples worlds
+//              that agree with everything it has perceived, plays every
+//              candidate plan on each of them, and follows the plan with
+//              the best average score. The candidates are: go home and
+//              climb, walk into one of the unvisited tiles next to the
+//              visited ones, or shoot in one of the four directions.
+//              After the plan's first risky step, the same safe
+//              exploration takes over, in the simulations as for real.
+//
+//              Worlds are sampled exactly from the generator's
+//              distribution given the percepts: pits at 0.2 on every
+//              tile, one Wumpus and the gold anywhere but (0,0), and a
+//              board of 4x4 to 7x7 until a bump tells the size.
+//
+//              The rollouts run on a ForkJoinPool, in chunks with their
+//              own random streams, on a small simulator that keeps the
+//              board in one long per feature and allocates nothing.
+//
+// NOTES:       - With no time budget the agent is deterministic: the
+//                same seed always gives the same game, however the
+//                chunks are scheduled. With a budget, every decision
+//                plays the rollouts it has time for.
+//
+//              - Tiles are bits y * 8 + x of a long, so the agent only
+//                plays the bottom-left 8x8 tiles of bigger boards.
+//
+//              - Within a rollout, the board's size is taken as known.
+// ======================================================================
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.ThreadLocalRandom;
+
+public class MonteCarloAI extends Agent
+{
+	// ===============================================================
+	// =						Declarations
+	// ===============================================================
+
+	private static final int	DEFAULT_SAMPLES = 256;	// Worlds sampled per decision
+	private static final int	CHUNK           = 16;	// Worlds per ForkJoin task
+	private static final int	MAX_ATTEMPTS    = 1 << 16;	// Samples rejected before giving up on the percepts
+	private static final int	MIN_SIZE        = 4;	// The smallest board assumed before a bump
+	private static final int	MAX_SIZE        = 7;	// The largest board assumed before a bump
+
+	private static final Action[] ACTIONS = Action.values();
+
+	private final int			samples;		// Worlds sampled per decision
+	private final long			budgetNanos;	// Time a decision may take; 0 for no limit
+	private final ForkJoinPool	pool;			// Where the rollouts run
+
+	private final State			state;			// What the agent knows
+	private final Sampler		sampler;		// The boards the agent might be on
+	private final ThreadLocal<Simulator> simulators = new ThreadLocal<Simulator>();
+
+	private long	seed;			// The seed of the agent's random choices
+	private int		decisions;		// Decisions so far this game, to give each its own random streams
+	private int		colsKnown;		// The number of columns, or 0 until a bump tells
+	private int		rowsKnown;		// The number of rows, or 0 until a bump tells
+	private int		goal;			// The tile the current plan walks into, or -1
+	private int		shootDir;		// The direction the current plan shoots in, or -1
+	private boolean	retreating;		// True once the agent has decided to go home
+	private Action	lastAction;		// The last action the agent made
+
+	// The candidates of the current decision: a goal tile, a shooting
+	// direction, or neither for going home
+	private final int[]		candidateGoal = new int[64 + 5];
+	private final int[]		candidateShot = new int[64 + 5];
+	private int				numOfCandidates;
+
+	// ===============================================================
+	// =						Constructors
+	// ===============================================================
+
+	public MonteCarloAI ( )
+	{
+		this ( DEFAULT_SAMPLES, 0, ForkJoinPool.commonPool() );
+	}
+
+	// 'samples' worlds per decision, cut short after 'budgetNanos' if it
+	// is not 0
+	public MonteCarloAI ( int _samples, long _budgetNanos, ForkJoinPool _pool )
+	{
+		samples     = Math.max ( 1, _samples );
+		budgetNanos = Math.max ( 0, _budgetNanos );
+		pool        = _pool;
+		state       = new State();
+		sampler     = new Sampler();
+		seed        = ThreadLocalRandom.current().nextLong();
+		reset();
+	}
+
+	// ===============================================================
+	// =					Agent Functions
+	// ===============================================================
+
+	public void reset ( )
+	{
+		state.reset ( State.boardMask ( 8, 8 ) );
+		decisions  = 0;
+		colsKnown  = 0;
+		rowsKnown  = 0;
+		goal       = -1;
+		shootDir   = -1;
+		retreating = false;
+		lastAction = Action.CLIMB;
+	}
+
+	public void setSeed ( long _seed )
+	{
+		seed = _seed;
+	}
+
+	public Action getAction
+	(
+		boolean stench,
+		boolean breeze,
+		boolean glitter,
+		boolean bump,
+		boolean scream
+	)
+	{
+		perceive ( stench, breeze, glitter, bump, scream );
+
+		int action = choose();
+		lastAction = ACTIONS[action];
+		state.act ( action );
+		return lastAction;
+	}
+
+	// ===============================================================
+	// =					Decision Functions
+	// ===============================================================
+
+	// Brings the knowledge up to date with the last action's outcome
+	private void perceive ( boolean stench, boolean breeze, boolean glitter, boolean bump, boolean scream )
+	{
+		if ( bump )
+		{
+			state.undoForward();
+			if ( state.dir == 0 )
+				colsKnown = state.x + 1;
+			else if ( state.dir == 3 )
+				rowsKnown = state.y + 1;
+			state.board = State.boardMask ( colsKnown > 0 ? colsKnown : 8, rowsKnown > 0 ? rowsKnown : 8 );
+		}
+
+		if ( lastAction == Action.SHOOT && state.shot )
+		{
+			if ( scream )
+				state.dead = true;
+			else
+				state.missLine |= State.line ( state.tile(), state.dir, state.board );
+			state.shot = false;
+		}
+
+		state.arrive ( stench, breeze, glitter );
+	}
+
+	// The next action, as an ordinal of Action
+	private int choose ( )
+	{
+		if ( state.glitter )
+			return Action.GRAB.ordinal();
+
+		int action = state.follow ( goal, shootDir );
+		if ( action >= 0 )
+			return action;
+		goal     = -1;
+		shootDir = -1;
+
+		if ( !retreating && !state.looted )
+		{
+			action = state.explore();
+			if ( action >= 0 )
+				return action;
+
+			decide();
+			action = state.follow ( goal, shootDir );
+			if ( action >= 0 )
+				return action;
+			goal     = -1;
+			shootDir = -1;
+			retreating = true;
+		}
+
+		return state.home();
+	}
+
+	// Picks the plan with the best average score over the sampled worlds
+	private void decide ( )
+	{
+		listCandidates();
+		++decisions;
+
+		if ( numOfCandidates == 1 || !sampler.prepare ( state, colsKnown, rowsKnown ) )
+			return;
+
+		long deadline = budgetNanos > 0 ? System.nanoTime() + budgetNanos : Long.MAX_VALUE;
+		int  chunks   = ( samples + CHUNK - 1 ) / CHUNK;
+		long[] sums   = pool.invoke ( new Rollouts ( 0, chunks, deadline ) );
+
+		int best = 0;
+		for ( int c = 1; c < numOfCandidates; ++c )
+			if ( sums[c] > sums[best] )
+				best = c;
+
+		goal     = candidateGoal[best];
+		shootDir = candidateShot[best];
+	}
+
+	// Going home first, so it wins ties
+	private void listCandidates ( )
+	{
+		numOfCandidates = 0;
+		addCandidate ( -1, -1 );
+
+		long frontier = state.board & State.expand ( state.visited ) & ~state.visited;
+		for ( long f = frontier; f != 0; f &= f - 1 )
+			addCandidate ( Long.numberOfTrailingZeros ( f ), -1 );
+
+		if ( state.arrow && !state.dead )
+		{
+			long wumpus = state.wumpusCandidates();
+			for ( int d = 0; d < 4; ++d )
+				if ( ( State.line ( state.tile(), d, state.board ) & wumpus ) != 0 )
+					addCandidate ( -1, d );
+		}
+	}
+
+	private void addCandidate ( int tile, int dir )
+	{
+		candidateGoal[numOfCandidates] = tile;
+		candidateShot[numOfCandidates] = dir;
+		++numOfCandidates;
+	}
+
+	// The chunks [first, last) of a decision's rollouts. Every chunk sums
+	// the scores of every candidate over its own worlds; the sums are
+	// longs, so the total does not depend on the order they are added in.
+	private class Rollouts extends RecursiveTask<long[]>
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final int	first;
+		private final int	last;
+		private final long	deadline;
+
+		Rollouts ( int _first, int _last, long _deadline )
+		{
+			first    = _first;
+			last     = _last;
+			deadline = _deadline;
+		}
+
+		protected long[] compute ( )
+		{
+			if ( last - first > 1 )
+			{
+				int      middle = ( first + last ) >>> 1;
+				Rollouts right  = new Rollouts ( middle, last, deadline );
+				right.fork();
+				long[] sums = new Rollouts ( first, middle, deadline ).compute();
+				long[] more = right.join();
+				for ( int c = 0; c < numOfCandidates; ++c )
+					sums[c] += more[c];
+				return sums;
+			}
+
+			Simulator simulator = simulators.get();
+			if ( simulator == null )
+			{
+				simulator = new Simulator();
+				simulators.set ( simulator );
+			}
+
+			long[] sums  = new long[numOfCandidates];
+			long   random = State.mix ( seed ^ ( (long) decisions << 32 ) ^ first );
+			int    count  = Math.min ( CHUNK, samples - first * CHUNK );
+
+			for ( int i = 0; i < count; ++i )
+			{
+				// The first world of the first chunk is always played, so
+				// a decision never goes without
+				if ( ( i > 0 || first > 0 ) && System.nanoTime() > deadline )
+					break;
+
+				random = sampler.sample ( simulator, random );
+				for ( int c = 0; c < numOfCandidates; ++c )
+					sums[c] += simulator.rollout ( state, candidateGoal[c], candidateShot[c] );
+			}
+
+			return sums;
+		}
+	}
+
+	// ===============================================================
+	// =						State
+	// ===============================================================
+
+	// The agent's side of a game: where it is, what it has, and what it
+	// knows, which is all the simulator needs to play on for it. Tiles
+	// are bits y * 8 + x.
+	static class State
+	{
+		static final long COL_0 = 0x0101010101010101L;
+		static final long COL_7 = COL_0 << 7;
+
+		int		x, y, dir;
+		int		score;
+		boolean	arrow, looted, dead, glitter;
+		boolean	shot;				// True if the last action was a shot with the arrow
+		long	board;				// The tiles that may be on the board
+		long	visited;			// The tiles the agent has been on
+		long	breezy;				// The visited tiles with a breeze
+		long	smelly;				// The visited tiles with a stench
+		long	missLine;			// The tiles a missed arrow flew over
+
+		void reset ( long _board )
+		{
+			x        = 0;
+			y        = 0;
+			dir      = 0;
+			score    = 0;
+			arrow    = true;
+			looted   = false;
+			dead     = false;
+			glitter  = false;
+			shot     = false;
+			board    = _board;
+			visited  = 0;
+			breezy   = 0;
+			smelly   = 0;
+			missLine = 0;
+		}
+
+		void copy ( State other )
+		{
+			x        = other.x;
+			y        = other.y;
+			dir      = other.dir;
+			score    = other.score;
+			arrow    = other.arrow;
+			looted   = other.looted;
+			dead     = other.dead;
+			glitter  = other.glitter;
+			shot     = other.shot;
+			board    = other.board;
+			visited  = other.visited;
+			breezy   = other.breezy;
+			smelly   = other.smelly;
+			missLine = other.missLine;
+		}
+
+		int tile ( )
+		{
+			return y * 8 + x;
+		}
+
+		// Records the percepts of the tile the agent is on
+		void arrive ( boolean stench, boolean breeze, boolean _glitter )
+		{
+			long here = 1L << tile();
+			visited |= here;
+			if ( breeze )
+				breezy |= here;
+			if ( stench )
+				smelly |= here;
+			glitter = _glitter;
+		}
+
+		// Applies what the agent knows an action does; FORWARD is undone
+		// if it bumps
+		void act ( int action )
+		{
+			--score;
+			shot = false;
+
+			switch ( ACTIONS[action] )
+			{
+				case TURN_LEFT:
+					dir = ( dir + 3 ) & 3;
+					break;
+
+				case TURN_RIGHT:
+					dir = ( dir + 1 ) & 3;
+					break;
+
+				case FORWARD:
+					x += dir == 0 ? 1 : dir == 2 ? -1 : 0;
+					y += dir == 3 ? 1 : dir == 1 ? -1 : 0;
+					if ( x < 0 || y < 0 )
+						undoForward();
+					break;
+
+				case SHOOT:
+					if ( arrow )
+					{
+						arrow = false;
+						shot  = true;
+						score -= 10;
+					}
+					break;
+
+				case GRAB:
+					if ( glitter )
+					{
+						looted  = true;
+						glitter = false;
+					}
+					break;
+
+				default:
+					break;
+			}
+		}
+
+		void undoForward ( )
+		{
+			x = Math.max ( 0, Math.min ( 7, x - ( dir == 0 ? 1 : dir == 2 ? -1 : 0 ) ) );
+			y = Math.max ( 0, Math.min ( 7, y - ( dir == 3 ? 1 : dir == 1 ? -1 : 0 ) ) );
+		}
+
+		// The tiles the Wumpus may be on, given the stenches, the missed
+		// shot and that the agent is alive
+		long wumpusCandidates ( )
+		{
+			if ( dead )
+				return 0;
+
+			long candidates = board & ~1L & ~visited & ~missLine & ~expand ( visited & ~smelly );
+			for ( long s = smelly; s != 0; s &= s - 1 )
+				candidates &= expand ( Long.lowestOneBit ( s ) );
+			return candidates;
+		}
+
+		// The tiles proven free of pits and of the Wumpus
+		long safe ( )
+		{
+			return board & ( visited | expand ( visited & ~breezy ) ) & ~wumpusCandidates();
+		}
+
+		// One step of following a plan, or -1 once it is done or cannot
+		// be followed
+		int follow ( int goal, int shootDir )
+		{
+			if ( shootDir >= 0 && arrow )
+				return dir == shootDir ? Action.SHOOT.ordinal() : turnTo ( shootDir );
+
+			if ( goal >= 0 && goal != tile() && ( board & ( 1L << goal ) ) != 0 )
+				return navigate ( 1L << goal, visited | ( 1L << goal ) );
+
+			return -1;
+		}
+
+		// One step towards the nearest safe unvisited tile, or -1 if there
+		// is none
+		int explore ( )
+		{
+			long targets = safe() & ~visited;
+			return targets == 0 ? -1 : navigate ( targets, visited | targets );
+		}
+
+		// One step towards (0,0) and out of the cave
+		int home ( )
+		{
+			if ( x == 0 && y == 0 )
+				return Action.CLIMB.ordinal();
+			int action = navigate ( 1L, visited );
+			return action >= 0 ? action : Action.CLIMB.ordinal();
+		}
+
+		// One step on a shortest path over 'passable' to any of 'targets',
+		// found by flooding out from the targets; -1 if there is none
+		int navigate ( long targets, long passable )
+		{
+			long here   = 1L << tile();
+			long around = expand ( here );
+			long seen   = targets;
+			long layer  = targets;
+
+			while ( layer != 0 )
+			{
+				long next = around & layer;
+				if ( next != 0 )
+					return stepInto ( next );
+
+				layer = expand ( layer ) & passable & ~seen;
+				seen |= layer;
+			}
+			return -1;
+		}
+
+		// FORWARD if the agent faces one of the tiles 'next', otherwise the
+		// turn towards one of them, a quarter turn if possible
+		int stepInto ( long next )
+		{
+			int best = -1;
+			for ( int d = 0; d < 4; ++d )
+			{
+				if ( ( next & neighbor ( tile(), d ) ) == 0 )
+					continue;
+				if ( d == dir )
+					return Action.FORWARD.ordinal();
+				if ( best < 0 || ( d - dir & 3 ) != 2 )
+					best = d;
+			}
+			return turnTo ( best );
+		}
+
+		int turnTo ( int d )
+		{
+			return ( ( d - dir ) & 3 ) == 1 ? Action.TURN_RIGHT.ordinal() : Action.TURN_LEFT.ordinal();
+		}
+
+		// The bit of the tile next to 'tile' in direction 'd', or 0
+		static long neighbor ( int tile, int d )
+		{
+			int c = tile & 7;
+			int r = tile >>> 3;
+			switch ( d )
+			{
+				case 0:  return c < 7 ? 1L << ( tile + 1 ) : 0;
+				case 1:  return r > 0 ? 1L << ( tile - 8 ) : 0;
+				case 2:  return c > 0 ? 1L << ( tile - 1 ) : 0;
+				default: return r < 7 ? 1L << ( tile + 8 ) : 0;
+			}
+		}
+
+		// Every tile next to a tile of 'tiles'
+		static long expand ( long tiles )
+		{
+			return ( ( tiles & ~COL_7 ) << 1 ) | ( ( tiles & ~COL_0 ) >>> 1 ) | ( tiles << 8 ) | ( tiles >>> 8 );
+		}
+
+		// The tiles of a board of the given size
+		static long boardMask ( int cols, int rows )
+		{
+			long row = cols >= 8 ? 0xFFL : ( 1L << cols ) - 1;
+			long mask = 0;
+			for ( int r = 0; r < rows && r < 8; ++r )
+				mask |= row << ( r * 8 );
+			return mask;
+		}
+
+		// The tiles an arrow shot from 'tile' in direction 'd' flies over
+		static long line ( int tile, int d, long board )
+		{
+			long line = 0;
+			for ( long t = 1L << tile; ( t & board ) != 0; t = neighbor ( Long.numberOfTrailingZeros ( t ), d ) )
+				line |= t;
+			return line;
+		}
+
+		// SplitMix64
+		static long mix ( long z )
+		{
+			z = ( z ^ ( z >>> 30 ) ) * 0xBF58476D1CE4E5B9L;
+			z = ( z ^ ( z >>> 27 ) ) * 0x94D049BB133111EBL;
+			return z ^ ( z >>> 31 );
+		}
+	}
+
+	// ===============================================================
+	// =						Sampler
+	// ===============================================================
+
+	// The boards the agent might be on, and how likely each is given the
+	// percepts: the pits of the visited tiles' neighbors are sampled
+	// until the breezes agree, everything else straight from the
+	// distribution. Read-only while the rollouts run.
+	private static class Sampler
+	{
+		private static final int MAX_BOARDS = 25;
+
+		private final long[]	board   = new long[MAX_BOARDS];	// The tiles of the board
+		private final long[]	wumpus  = new long[MAX_BOARDS];	// Where the Wumpus may be
+		private final long[]	gold    = new long[MAX_BOARDS];	// Where the gold may be
+		private final long[]	border  = new long[MAX_BOARDS];	// Tiles whose pits must explain the breezes
+		private final long[]	beyond  = new long[MAX_BOARDS];	// Tiles whose pits nothing constrains
+		private final double[]	weight  = new double[MAX_BOARDS];	// Running sum of how likely each board is
+		private int				boards;
+		private long			breezy;			// The breezes to explain
+		private final State		view = new State();	// The agent's knowledge on one of the boards
+
+		// False if no board agrees with the percepts
+		boolean prepare ( State state, int colsKnown, int rowsKnown )
+		{
+			long visited = state.visited;
+			int  maxX    = 0;
+			int  maxY    = 0;
+			for ( long v = visited; v != 0; v &= v - 1 )
+			{
+				int t = Long.numberOfTrailingZeros ( v );
+				maxX = Math.max ( maxX, t & 7 );
+				maxY = Math.max ( maxY, t >>> 3 );
+			}
+
+			breezy = state.breezy;
+			boards = 0;
+			double total = 0;
+
+			for ( int cols = first ( colsKnown, maxX ); cols <= last ( colsKnown, maxX ); ++cols )
+				for ( int rows = first ( rowsKnown, maxY ); rows <= last ( rowsKnown, maxY ); ++rows )
+				{
+					long tiles   = State.boardMask ( cols, rows );
+					int  n       = Long.bitCount ( tiles ) - 1;
+					long noPit   = tiles & State.expand ( visited & ~breezy ) & ~visited;
+					long unknown = tiles & ~visited & ~noPit;
+
+					view.copy ( state );
+					view.board = tiles;
+
+					long w = state.dead ? 0 : view.wumpusCandidates();
+					long g = state.looted ? 0 : tiles & ~visited & ~1L;
+
+					// P(no stench but where seen) * P(no glitter on the
+					// visited tiles) * P(no pits next to the calm ones)
+					double p = Math.pow ( 0.8, Long.bitCount ( noPit ) );
+					if ( !state.dead )
+						p *= (double) Long.bitCount ( w ) / n;
+					if ( !state.looted )
+						p *= (double) Long.bitCount ( g ) / n;
+					if ( p <= 0 || n < 1 )
+						continue;
+
+					board[boards]  = tiles;
+					wumpus[boards] = w;
+					gold[boards]   = g;
+					border[boards] = unknown & State.expand ( breezy );
+					beyond[boards] = unknown & ~border[boards];
+					total += p;
+					weight[boards] = total;
+					++boards;
+				}
+
+			return boards > 0;
+		}
+
+		private static int first ( int known, int farthest )
+		{
+			return known > 0 ? known : Math.max ( MIN_SIZE, farthest + 1 );
+		}
+
+		private static int last ( int known, int farthest )
+		{
+			return known > 0 ? known : Math.min ( 8, Math.max ( MAX_SIZE, farthest + 1 ) );
+		}
+
+		// Puts a world into 'simulator'; returns the next random state
+		long sample ( Simulator simulator, long random )
+		{
+			long pits = 0;
+			int  b    = 0;
+
+			for ( int attempt = 0; attempt < MAX_ATTEMPTS; ++attempt )
+			{
+				random += 0x9E3779B97F4A7C15L;
+				double u = ( State.mix ( random ) >>> 11 ) * 0x1.0p-53 * weight[boards-1];
+				b = 0;
+				while ( b < boards - 1 && weight[b] <= u )
+					++b;
+
+				random += 0x9E3779B97F4A7C15L;
+				pits = pits ( border[b], random );
+				if ( explains ( pits ) )
+					break;
+			}
+
+			random += 0x9E3779B97F4A7C15L;
+			pits |= pits ( beyond[b], random );
+
+			random += 0x9E3779B97F4A7C15L;
+			int w = pick ( wumpus[b], State.mix ( random ) );
+			random += 0x9E3779B97F4A7C15L;
+			int g = pick ( gold[b], State.mix ( random ) );
+
+			simulator.load ( board[b], pits, w, g );
+			return random;
+		}
+
+		// True if every breeze has a pit next to it
+		private boolean explains ( long pits )
+		{
+			long around = State.expand ( pits );
+			return ( breezy & ~around ) == 0;
+		}
+
+		// Every tile of 'tiles' with probability 0.2, 16 random bits each
+		private static long pits ( long tiles, long random )
+		{
+			long pits = 0;
+			long bits = 0;
+			int  left = 0;
+			for ( long t = tiles; t != 0; t &= t - 1 )
+			{
+				if ( left == 0 )
+				{
+					random += 0x9E3779B97F4A7C15L;
+					bits = State.mix ( random );
+					left = 4;
+				}
+				if ( ( bits & 0xFFFF ) < 13107 )
+					pits |= Long.lowestOneBit ( t );
+				bits >>>= 16;
+				--left;
+			}
+			return pits;
+		}
+
+		// A uniformly chosen tile of 'tiles', or -1 if there is none
+		private static int pick ( long tiles, long random )
+		{
+			int count = Long.bitCount ( tiles );
+			if ( count == 0 )
+				return -1;
+
+			int skip = (int) ( ( ( random >>> 32 ) * count ) >>> 32 );
+			for ( ; skip > 0; --skip )
+				tiles &= tiles - 1;
+			return Long.numberOfTrailingZeros ( tiles );
+		}
+	}
+
+	// ===============================================================
+	// =						Simulator
+	// ===============================================================
+
+	// The rules of World.step on a sampled world, played by the agent's
+	// own policy from where the agent is. One per thread; a rollout
+	// allocates nothing. See RolloutCheck for the check that these rules
+	// and World's agree.
+	static class Simulator
+	{
+		private final State	state = new State();
+
+		private long	board;		// The tiles of the world
+		private long	pits;		// The tiles with a pit
+		private int		wumpus;		// The Wumpus' tile, or -1 once it does not matter
+		private int		gold;		// The gold's tile, or -1 once it does not matter
+		private long	steps;		// The actions simulated so far
+		private int		goal;		// The tile the rollout's plan walks into, or -1
+		private int		shootDir;	// The direction the rollout's plan shoots in, or -1
+
+		void load ( long _board, long _pits, int _wumpus, int _gold )
+		{
+			board  = _board;
+			pits   = _pits;
+			wumpus = _wumpus;
+			gold   = _gold;
+		}
+
+		// Loads the world of 'spec', which must fit in 8x8
+		void load ( WorldSpec spec )
+		{
+			long pits = 0;
+			for ( int r = 0; r < spec.getRowDimension(); ++r )
+				for ( int c = 0; c < spec.getColDimension(); ++c )
+					if ( spec.isPit ( c, r ) )
+						pits |= 1L << ( r * 8 + c );
+
+			load ( State.boardMask ( spec.getColDimension(), spec.getRowDimension() ), pits,
+				spec.getWumpusR() * 8 + spec.getWumpusC(), spec.getGoldR() * 8 + spec.getGoldC() );
+		}
+
+		// Puts 'start' at the beginning of a game on the loaded world
+		void start ( State start )
+		{
+			start.reset ( board );
+			start.arrive ( ( State.expand ( 1L << wumpus ) & 1L ) != 0, ( State.expand ( pits ) & 1L ) != 0, gold == 0 );
+		}
+
+		long getSteps ( )
+		{
+			return steps;
+		}
+
+		// The score the agent ends with if it walks into 'goal' or shoots
+		// towards 'shootDir' (or neither) and then explores safely
+		int rollout ( State from, int _goal, int _shootDir )
+		{
+			state.copy ( from );
+			state.board = board;
+			goal        = _goal;
+			shootDir    = _shootDir;
+
+			while ( true )
+			{
+				if ( state.score < -1000 )
+					return state.score;
+
+				if ( step ( choose() ) )
+					return state.score;
+			}
+		}
+
+		// The rollout's next action, as an ordinal of Action: the plan
+		// until it is done, then safe exploration, then home
+		int choose ( )
+		{
+			if ( state.glitter )
+				return Action.GRAB.ordinal();
+
+			int action = state.follow ( goal, shootDir );
+			if ( action >= 0 )
+				return action;
+			goal     = -1;
+			shootDir = -1;
+
+			action = state.looted ? -1 : state.explore();
+			return action >= 0 ? action : state.home();
+		}
+
+		// World.step on the simulated world; true if the game is over
+		boolean step ( int action )
+		{
+			State s    = state;
+			int   from = s.tile();
+			++steps;
+
+			switch ( ACTIONS[action] )
+			{
+				case FORWARD:
+				{
+					--s.score;
+					long to = State.neighbor ( from, s.dir ) & board;
+					if ( to == 0 )
+						return false;
+
+					int t = Long.numberOfTrailingZeros ( to );
+					s.x = t & 7;
+					s.y = t >>> 3;
+					if ( ( pits & to ) != 0 || ( !s.dead && t == wumpus ) )
+					{
+						s.score -= 1000;
+						return true;
+					}
+
+					boolean stench = wumpus >= 0 && ( ( State.expand ( 1L << wumpus ) & to ) != 0 || ( s.dead && t == wumpus ) );
+					s.arrive ( stench, ( State.expand ( pits ) & to ) != 0, !s.looted && t == gold );
+					return false;
+				}
+
+				case SHOOT:
+					s.act ( action );
+					if ( s.shot )
+					{
+						long line = State.line ( from, s.dir, board );
+						if ( !s.dead && wumpus >= 0 && ( line & ( 1L << wumpus ) ) != 0 )
+							s.dead = true;
+						else
+							s.missLine |= line;
+						s.shot = false;
+					}
+					return false;
+
+				case CLIMB:
+					--s.score;
+					if ( from == 0 )
+					{
+						if ( s.looted )
+							s.score += 1000;
+						return true;
+					}
+					return false;
+
+				default:
+					s.act ( action );
+					return false;
+			}
+		}
+	}
+
+	// ===============================================================
+	// =						Player
+	// ===============================================================
+
+	// A rollout played on World instead of the simulator: the same plan
+	// and policy, told the board's size like a rollout is, but moved by
+	// World's rules and percepts. Its score on a world is the rollout's
+	// if the simulator's rules are World's.
+	static class Player extends Agent
+	{
+		private final Simulator	policy = new Simulator();	// Only its State and plan are used
+		private final long		board;
+		private final int		goal;
+		private final int		shootDir;
+
+		Player ( long _board, int _goal, int _shootDir )
+		{
+			board    = _board;
+			goal     = _goal;
+			shootDir = _shootDir;
+			reset();
+		}
+
+		public void reset ( )
+		{
+			policy.state.reset ( board );
+			policy.goal     = goal;
+			policy.shootDir = shootDir;
+		}
+
+		public Action getAction
+		(
+			boolean stench,
+			boolean breeze,
+			boolean glitter,
+			boolean bump,
+			boolean scream
+		)
+		{
+			State state = policy.state;
+
+			if ( bump )
+				state.undoForward();
+
+			if ( state.shot )
+			{
+				if ( scream )
+					state.dead = true;
+				else
+					state.missLine |= State.line ( state.tile(), state.dir, board );
+				state.shot = false;
+			}
+
+			state.arrive ( stench, breeze, glitter );
+
+			int action = policy.choose();
+			state.act ( action );
+			return ACTIONS[action];
+		}
+	}
+}
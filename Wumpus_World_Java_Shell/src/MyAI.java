@@ -21,27 +21,266 @@ import java.util.*;
 
 public class MyAI extends Agent
 {
-    final int maxDimension = 7;
-
-    // Tile Structure
-    private class Tile
+    // Knowledge base: the agent does not know how big the board is until it bumps into the right and top walls,
+    // so a square only gets a slot, and room in the per-slot arrays, the first time something is stored about it
+    // a square without a slot still holds the priors, so memory grows with the squares visited, not the board
+    final float pitPrior = 0.2f;
+    //one wumpus somewhere on the 7x7 board the agent assumes (see assumedDimension); only whether P(wumpus) is 0
+    //decides anything, and a stench narrows it down, see updateWumpusProb
+    final float wumpusPrior = 1.0f/(7*7);
+
+    private SquareMap squares;      // square (x, y) -> slot
+    private int[] visitedNum;       // times the agent has been on the square
+    private float[] pitProb;        // P(pit), 0 means sure there is no pit
+    private float[] wumpusProb;     // P(wumpus), 0 means sure there is no wumpus
+    private byte[] flags;           // BREEZE, STENCH, QUEUED, SAFE and ON_FRONTIER
+    private int[] link;             // link[slot*4 + dir] is the slot of the adjacent square in direction dir, or -1
+    private int[] stenches;         // slots with a STENCH, so the inferences don't have to look through every slot
+    private int stenchCount;
+    private int[] breezes;          // slots with a BREEZE
+    private int breezeCount;
+    private int[] wumpusCandidates; // the slots updateWumpusProb last left P(wumpus) > 0 on
+    private int wumpusCandidateCount; // -1 until updateWumpusProb has cleared every other slot once
+
+    private static final byte BREEZE = 1;       // used to infer pit
+    private static final byte STENCH = 2;       // used to infer wumpus
+    private static final byte QUEUED = 4;       // has been in DFS queue?
+    private static final byte SAFE = 8;         // pitProb == 0 and wumpusProb == 0
+    private static final byte ON_FRONTIER = 16; // is in DFS queue now
+
+    //open-addressed map from packed square coordinates to slots 0, 1, 2, ... in the order the squares were added
+    //the key of (x, y) is y << 32 | x; the 8x8 squares at the origin, all of a tournament board, skip the hashing
+    private static class SquareMap
     {
-        int visitedNum = 0;
-        boolean breeze = false; //used to infer pit
-        boolean stench = false; //used to infer wumpus
-        double pitProb = 0.2;
-        double wumpusProb = 1.0/((double)maxDimension*(double)maxDimension);
-        boolean queue = false; //has been in DFS queue?
+        private long[] keys = new long[64];     // by slot
+        private int[] near = new int[64];       // slot + 1 by y*8 + x for x, y < 8, 0 is empty
+        private int[] table = new int[128];     // slot + 1 by hash for the other squares, 0 is empty; never more than half full
+        private int size = 0;
+
+        static long key(int x, int y){
+
+            return (long)y << 32 | x;
+        }
+
+        int size(){
+
+            return size;
+        }
+
+        SquareMap copy(){
+
+            SquareMap map = new SquareMap();
+            map.keys = keys.clone();
+            map.near = near.clone();
+            map.table = table.clone();
+            map.size = size;
+            return map;
+        }
+
+        int x(int slot){
+
+            return (int)keys[slot];
+        }
+
+        int y(int slot){
+
+            return (int)(keys[slot] >>> 32);
+        }
+
+        //the slot of the key, or -1
+        int get(long key){
+
+            if(isNear(key)) return near[nearIndex(key)] - 1;
+
+            int mask = table.length - 1;
+
+            for(int i = hash(key) & mask; ; i = (i + 1) & mask){
+
+                int entry = table[i];
+                if(entry == 0) return -1;
+                if(keys[entry - 1] == key) return entry - 1;
+            }
+        }
+
+        //the key must not be in the map yet
+        int add(long key){
+
+            if(size == keys.length) keys = Arrays.copyOf(keys, 2*size);
+            keys[size] = key;
+
+            if(2*(size + 1) > table.length){ //grow the table and hash every key again
+
+                table = new int[2*table.length];
+                for(int slot = 0; slot <= size; slot++) insert(slot);
+            }
+            else{
+
+                insert(size);
+            }
+
+            return size++;
+        }
+
+        void clear(){
+
+            Arrays.fill(near, 0);
+            Arrays.fill(table, 0);
+            size = 0;
+        }
+
+        private static boolean isNear(long key){
+
+            return (key & ~(7L << 32 | 7)) == 0;
+        }
+
+        private static int nearIndex(long key){
+
+            return (int)(key >>> 32)*8 + (int)key;
+        }
+
+        private void insert(int slot){
+
+            if(isNear(keys[slot])){
+
+                near[nearIndex(keys[slot])] = slot + 1;
+                return;
+            }
+
+            int mask = table.length - 1;
+            int i = hash(keys[slot]) & mask;
+            while(table[i] != 0) i = (i + 1) & mask;
+            table[i] = slot + 1;
+        }
+
+        private static int hash(long key){
+
+            return (int)((key*0x9E3779B97F4A7C15L) >>> 32);
+        }
     }
+    //the slot of (x, y), or -1 if nothing is known about the square
+    private int slot(int x, int y){
 
-    //each option represents an adjacent square
-    private class Options
-    {
-        int xOff = 0;
-        int yOff = 0;
-        boolean valid = false;
+        return squares.get(SquareMap.key(x, y));
+    }
+
+    //the slot of (x, y), giving the square one that holds the priors if it has none yet
+    private int addSquare(int x, int y){
+
+        int s = slot(x, y);
+        if(s >= 0) return s;
+
+        s = squares.add(SquareMap.key(x, y));
+        if(s == visitedNum.length) growKnowledge(2*s);
+
+        visitedNum[s] = 0;
+        pitProb[s] = pitPrior;
+        wumpusProb[s] = wumpusPriorAt(x, y);
+        flags[s] = 0;
+        linkSquare(s);
+
+        return s;
+    }
+
+    private void growKnowledge(int capacity){
+
+        visitedNum = Arrays.copyOf(visitedNum, capacity);
+        pitProb = Arrays.copyOf(pitProb, capacity);
+        wumpusProb = Arrays.copyOf(wumpusProb, capacity);
+        flags = Arrays.copyOf(flags, capacity);
+        link = Arrays.copyOf(link, capacity*4);
+    }
+
+    //the percept lists grow one slot at a time, as squares are visited
+    private static int[] append(int[] slots, int count, int s){
+
+        if(count == slots.length) slots = Arrays.copyOf(slots, 2*count);
+        slots[count] = s;
+        return slots;
+    }
+
+    //forget everything about the squares
+    private void resetKnowledge(){
+
+        squares.clear();
+        stenchCount = 0;
+        breezeCount = 0;
+        wumpusCandidateCount = -1;
+        missDir = -1;
+    }
+
+    private int visitedNumAt(int x, int y){
+
+        int s = slot(x, y);
+        return s < 0 ? 0 : visitedNum[s];
+    }
+
+    private float pitProbAt(int x, int y){
+
+        int s = slot(x, y);
+        return s < 0 ? pitPrior : pitProb[s];
+    }
+
+    private float wumpusProbAt(int x, int y){
+
+        int s = slot(x, y);
+        return s < 0 ? wumpusPriorAt(x, y) : wumpusProb[s];
+    }
+
+    //P(wumpus) of a square that has no slot yet, given what a stench and a missed shot proved about every square
+    private float wumpusPriorAt(int x, int y){
+
+        if(wumpusCertain || wumpusNearby) return 0; //the wumpus's own square, and every square next to a stench, has a slot
+        if(onMissedShot(x, y)) return 0;
+        return wumpusPrior;
+    }
+
+    //a missed shot proves there is no wumpus from the shooter's square onwards in the direction of the shot
+    private boolean onMissedShot(int x, int y){
+
+        switch(missDir){
+
+            case 0: return y == missY && x >= missX;
+            case 1: return x == missX && y <= missY;
+            case 2: return y == missY && x <= missX;
+            case 3: return x == missX && y >= missY;
+        }
+
+        return false;
+    }
+
+    //every write to pitProb and wumpusProb goes through these two, so that the SAFE flag stays in step
+    private void storePitProb(int x, int y, float p){
+
+        storePitProb(addSquare(x, y), p);
+    }
+
+    private void storePitProb(int s, float p){
+
+        pitProb[s] = p;
+        updateSafeBit(s);
+    }
+
+    private void storeWumpusProb(int x, int y, float p){
+
+        storeWumpusProb(addSquare(x, y), p);
+    }
+
+    private void storeWumpusProb(int s, float p){
+
+        wumpusProb[s] = p;
+        updateSafeBit(s);
+    }
+
+    private void updateSafeBit(int s){
+
+        if(pitProb[s] == 0 && wumpusProb[s] == 0) flags[s] |= SAFE;
+        else flags[s] &= ~SAFE;
     }
 
+    //offsets of the adjacent squares, indexed by direction: 0 - right, 1 - down, 2 - left, 3 - up
+    final int[] xOff = {1, 0, -1, 0};
+    final int[] yOff = {0, -1, 0, 1};
+
     //agent's Location
     private class Node{
 
@@ -57,20 +296,199 @@ public class MyAI extends Agent
             this.parentX = x;
             this.parentY = y;
         }
+
+        //a copy that belongs to the agent the call is made on
+        Node copy(){
+
+            Node node = new Node(x, y);
+            node.parentX = parentX;
+            node.parentY = parentY;
+            return node;
+        }
+    }
+
+    //DFS frontier: an array-backed stack of slots, with the ON_FRONTIER flag marking the squares on it
+    //a square is pushed at most once per game (see QUEUED), so it never holds more than every square with a slot
+    private class Frontier
+    {
+        private int[] cells = new int[64];
+        private int size = 0;
+
+        boolean isEmpty(){
+
+            return size == 0;
+        }
+
+        int size(){
+
+            return size;
+        }
+
+        //i = 0 is the bottom of the stack
+        int get(int i){
+
+            return cells[i];
+        }
+
+        boolean contains(int cell){
+
+            return (flags[cell] & ON_FRONTIER) != 0;
+        }
+
+        //returns false if the square is already on the frontier
+        boolean push(int cell){
+
+            if(contains(cell)) return false;
+
+            if(size == cells.length) cells = Arrays.copyOf(cells, 2*size);
+            cells[size++] = cell;
+            flags[cell] |= ON_FRONTIER;
+            return true;
+        }
+
+        int pop(){
+
+            int cell = cells[--size];
+            flags[cell] &= ~ON_FRONTIER;
+            return cell;
+        }
+
+        //how far from the bottom of the stack the square is, or -1 if it is not on the frontier
+        int indexOf(int cell){
+
+            if(!contains(cell)) return -1;
+
+            int i = size - 1;
+            while(cells[i] != cell) i--;
+            return i;
+        }
+
+        //returns false if the square is not on the frontier
+        boolean remove(int cell){
+
+            if(!contains(cell)) return false;
+
+            int i = size - 1;
+            while(cells[i] != cell) i--;
+            System.arraycopy(cells, i + 1, cells, i, size - 1 - i);
+            size--;
+            flags[cell] &= ~ON_FRONTIER;
+            return true;
+        }
+
+        void clear(){
+
+            while(size > 0) pop();
+        }
+
+        //the flags it keeps in step are copied separately
+        void copyFrom(Frontier other){
+
+            cells = other.cells.clone();
+            size = other.size;
+        }
     }
 
     Node initialState;
     Node nextGoal;
+    Node frontierGoal; //nextGoal when it comes from the frontier, reused so that popping does not allocate
     Node wumpus;
-    Stack<Node> DFSqueue;
+    Frontier DFSqueue;
     Stack<Node> pathToOrigin;
 
     private enum AgentDirection {
         RIGHT, DOWN, LEFT, UP;
     }
 
-    //Need to create a Linked List to save subsequent Actions
-    LinkedList<Agent.Action> actionSequence; //FIFO
+    private static final AgentDirection[] DIRECTIONS = AgentDirection.values();
+
+    //Need to create a queue to save subsequent Actions
+    ActionQueue actionSequence; //FIFO
+
+    //Pending actions as Action ordinals in a fixed ring buffer, so queueing a maneuver allocates nothing
+    private static class ActionQueue
+    {
+        private static final Action[] ACTIONS = Action.values();
+        private final byte[] actions = new byte[8]; //the longest maneuver queues 3 actions
+        private int head = 0;
+        private int size = 0;
+
+        boolean isEmpty(){
+
+            return size == 0;
+        }
+
+        void add(Action action){
+
+            actions[(head + size++) & 7] = (byte) action.ordinal();
+        }
+
+        Action poll(){
+
+            Action action = ACTIONS[actions[head]];
+            head = (head + 1) & 7;
+            size--;
+            return action;
+        }
+
+        void clear(){
+
+            head = 0;
+            size = 0;
+        }
+
+        ActionQueue copy(){
+
+            ActionQueue queue = new ActionQueue();
+            System.arraycopy(actions, 0, queue.actions, 0, actions.length);
+            queue.head = head;
+            queue.size = size;
+            return queue;
+        }
+    }
+
+    //MOVE_SEQUENCE[current*4 + desired] turns the agent from direction current to direction desired and moves forward,
+    //KILL_SEQUENCE does the same but shoots before moving
+    private static final Action[][] MOVE_SEQUENCE = buildSequences(false);
+    private static final Action[][] KILL_SEQUENCE = buildSequences(true);
+
+    //directions are numbered clockwise, so (desired - current) mod 4 says which way to turn
+    private static Action[][] buildSequences(boolean shoot){
+
+        Action[][] sequences = new Action[16][];
+
+        for(int current = 0; current < 4; current++){
+            for(int desired = 0; desired < 4; desired++){
+
+                Action[] turns;
+
+                switch((desired - current + 4) % 4){
+
+                    case 1: // {R -> F}
+                        turns = new Action[]{Action.TURN_RIGHT};
+                        break;
+
+                    case 2: // {L -> L -> F}
+                        turns = new Action[]{Action.TURN_LEFT, Action.TURN_LEFT};
+                        break;
+
+                    case 3: // {L -> F}
+                        turns = new Action[]{Action.TURN_LEFT};
+                        break;
+
+                    default: // {F}
+                        turns = new Action[0];
+                }
+
+                Action[] sequence = Arrays.copyOf(turns, turns.length + (shoot ? 2 : 1));
+                if(shoot) sequence[turns.length] = Action.SHOOT;
+                sequence[sequence.length - 1] = Action.FORWARD;
+                sequences[current*4 + desired] = sequence;
+            }
+        }
+
+        return sequences;
+    }
 
     // Agent Variables => record what has happened in the world
     private boolean	goldLooted;		// True if gold was successfuly looted
@@ -78,6 +496,7 @@ public class MyAI extends Agent
     private boolean	hasArrow;		// True if the agent can shoot
     private boolean	wumpusAlive;	// Wumpus alive flag
     private boolean wumpusCertain; // know where is wumpus
+    private boolean wumpusNearby;  // something smelled, so the wumpus is next to a visited square
     private boolean killWumpus;    // only when it is very likely that wumpus holds the gold
     private AgentDirection		agentDir;		// The direction the agent is facing: 0 - right, 1 - down, 2 - left, 3 - up
     private boolean moving;         // agent is moving to the next goal
@@ -87,8 +506,12 @@ public class MyAI extends Agent
     private int		lastAgentX;			// The column where the agent was located ( x-coord = col-coord )
     private int		lastAgentY;			// The row where the agent was located ( y-coord = row-coord )
     private Agent.Action	lastAction;	// The last action the agent made
-    private Tile[][]	board;			// The game board, max = 7*7
-    private Options[] options;          // each option represents an adjacent square
+    private FrontierSweep sweep;        // ranks the frontier by the cost of reaching it
+    private PitInference pitInference;  // exact P(pit) next to the breezes
+    private int[] pathToGoal;           // slots from the agent to pathGoal, the next one last
+    private int pathLength;
+    private int pathGoal;               // the slot pathToGoal leads to, or -1
+    private int missX, missY, missDir;  // where the arrow was shot from and which way if it missed, missDir = -1 otherwise
     private int     visitedTiles;       // number of tiles which have been visited
     private int actionCount;
     //private boolean debug;
@@ -98,35 +521,76 @@ public class MyAI extends Agent
     //it means that gold is off a pit => give up! (but the rule proves to be useless)
     private int visitedTilesLimit(){
 
-        return (int)((colDimensionLogic*rowDimensionLogic - 1)*0.8);
+        return (int)(((long)boardCols()*boardRows() - 1)*0.8);
     }
 
-    //assume wumpus and pit are independent, so P(safe) = P(no wumpus)*P(no pit)
-    private double safeProb(int x, int y){
+    //the board size the stop-loss counts on: the inferred bound once the agent has bumped into it; before that
+    //the board is taken to be at least as big as the largest tournament board, and one square beyond the farthest visited
+    private int boardCols(){
 
-        if(x >= colDimensionLogic || y >= rowDimensionLogic) return 0.0;
-        return (1 - board[x][y].wumpusProb)*(1 - board[x][y].pitProb);
+        return colDimensionLogic != UNKNOWN ? colDimensionLogic : Math.max(assumedDimension, farthestX + 2);
     }
 
-    private void assignPitProb(int x, int y, double p){
+    private int boardRows(){
 
-        if(board[x][y].pitProb != 0){ //if it is zero, means we are sure there is no pit, so don't need to change
-
-            board[x][y].pitProb = p;
-        }
+        return rowDimensionLogic != UNKNOWN ? rowDimensionLogic : Math.max(assumedDimension, farthestY + 2);
     }
 
-    private void assignWumpusProb(int x, int y, double p){
+    //assume wumpus and pit are independent, so P(safe) = P(no wumpus)*P(no pit)
+    //P(safe) = 1 exactly when both are 0, which is what the SAFE flag records
+    private boolean isSafe(int x, int y){
 
-        if(board[x][y].wumpusProb != 0){ //if it is zero, means we are sure there is no wumpus, so don't need to change
+        if(x >= colDimensionLogic || y >= rowDimensionLogic) return false;
 
-            board[x][y].wumpusProb = p;
-        }
+        int s = slot(x, y);
+        return s >= 0 && (flags[s] & SAFE) != 0;
+    }
+
+    //the same for a square known to have a slot
+    private boolean isSafe(int s){
+
+        return (flags[s] & SAFE) != 0 && squares.x(s) < colDimensionLogic && squares.y(s) < rowDimensionLogic;
     }
 
     // Board Variables
-    private int			colDimensionLogic;	// The number of columns the game board has, inferred by agent
-    private int			rowDimensionLogic;	// The number of rows the game board has, inferred by agent
+    //until the agent bumps into a wall, it plays as if the board ended where the largest tournament board does;
+    //only when nothing safe is left inside does it look past that edge, see liftAssumedBounds
+    static final int UNKNOWN = Integer.MAX_VALUE;   // a bound that is neither known nor assumed any more
+    final int assumedDimension = 7;                 // the largest tournament board
+    private int			colDimensionLogic;	// The number of columns the game board has, inferred by agent, or UNKNOWN
+    private int			rowDimensionLogic;	// The number of rows the game board has, inferred by agent, or UNKNOWN
+    private boolean colAssumed, rowAssumed;         // the bound is assumedDimension, not bumped into
+    private int farthestX, farthestY;           // the largest column and row visited
+
+    //random tie-breaking: SplitMix64 on this agent's own state, so that games on parallel threads share nothing
+    //and the same seed always gives the same moves
+    private long randomState;
+    private int[] moveMethods;      // directions still to try in moveToGoal
+
+    //a random int in [0, bound)
+    private int nextRandomInt(int bound){
+
+        randomState += 0x9E3779B97F4A7C15L;
+        long z = randomState;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        z = z ^ (z >>> 31);
+
+        return (int)(((z >>> 33) * bound) >>> 31);
+    }
+
+    //the same seed always gives the same sequence of random choices; reset() does not restart it
+    @Override
+    public void setSeed(long seed){
+
+        randomState = seed;
+    }
+
+    public MyAI(long seed){
+
+        this();
+        setSeed(seed);
+    }
 
     public MyAI ( )
     {
@@ -134,12 +598,121 @@ public class MyAI extends Agent
         // YOUR CODE BEGINS
         // ======================================================================
 
+        //room for a 7x7 board to start with, the arrays double when they run out
+        squares = new SquareMap();
+        visitedNum = new int[64];
+        pitProb = new float[64];
+        wumpusProb = new float[64];
+        flags = new byte[64];
+        link = new int[64*4];
+        stenches = new int[16];
+        breezes = new int[16];
+        wumpusCandidates = new int[4];
+
+        sweep = new FrontierSweep(); //pathToGoal is allocated by the first sweep
+        pitInference = new PitInference();
+        moveMethods = new int[4];
+        randomState = java.util.concurrent.ThreadLocalRandom.current().nextLong();
+
+        actionSequence = new ActionQueue();
+        initialState = new Node(0,0);
+        wumpus = new Node(0, 0);
+        frontierGoal = new Node(0,0);
+        DFSqueue = new Frontier();
+        pathToOrigin = new Stack<Node>();
+
+        reset();
+        // ======================================================================
+        // YOUR CODE ENDS
+        // ======================================================================
+    }
+
+    //a copy of the agent in the middle of a game: the knowledge base, the pending actions and the random state
+    //are copied, and nextGoal is pointed at the copy of whichever node it points at here
+    //the sweep's scratch arrays are not, the copy starts its own, and the pit inference's memo is shared until
+    //either side adds to it
+    private MyAI(MyAI other){
+
+        squares = other.squares.copy();
+        visitedNum = other.visitedNum.clone();
+        pitProb = other.pitProb.clone();
+        wumpusProb = other.wumpusProb.clone();
+        flags = other.flags.clone();
+        link = other.link.clone();
+        stenches = other.stenches.clone();
+        stenchCount = other.stenchCount;
+        breezes = other.breezes.clone();
+        breezeCount = other.breezeCount;
+        wumpusCandidates = other.wumpusCandidates.clone();
+        wumpusCandidateCount = other.wumpusCandidateCount;
+
+        sweep = new FrontierSweep();
+        pitInference = new PitInference(other.pitInference);
+        pathToGoal = other.pathToGoal == null ? null : other.pathToGoal.clone();
+        pathLength = other.pathLength;
+        pathGoal = other.pathGoal;
+        moveMethods = other.moveMethods.clone();
+        randomState = other.randomState;
+
+        actionSequence = other.actionSequence.copy();
+        initialState = other.initialState.copy();
+        wumpus = other.wumpus.copy();
+        frontierGoal = other.frontierGoal.copy();
+        if(other.nextGoal == other.initialState) nextGoal = initialState;
+        else if(other.nextGoal == other.wumpus) nextGoal = wumpus;
+        else if(other.nextGoal == other.frontierGoal) nextGoal = frontierGoal;
+        else nextGoal = other.nextGoal == null ? null : other.nextGoal.copy();
+        DFSqueue = new Frontier();
+        DFSqueue.copyFrom(other.DFSqueue);
+        pathToOrigin = new Stack<Node>();
+        for(Node node : other.pathToOrigin) pathToOrigin.push(node.copy());
+
+        goldLooted = other.goldLooted;
+        goldImpossible = other.goldImpossible;
+        hasArrow = other.hasArrow;
+        wumpusAlive = other.wumpusAlive;
+        wumpusCertain = other.wumpusCertain;
+        wumpusNearby = other.wumpusNearby;
+        killWumpus = other.killWumpus;
+        agentDir = other.agentDir;
+        moving = other.moving;
+        agentX = other.agentX;
+        agentY = other.agentY;
+        lastAgentDir = other.lastAgentDir;
+        lastAgentX = other.lastAgentX;
+        lastAgentY = other.lastAgentY;
+        lastAction = other.lastAction;
+        missX = other.missX;
+        missY = other.missY;
+        missDir = other.missDir;
+        visitedTiles = other.visitedTiles;
+        actionCount = other.actionCount;
+        originalPath = other.originalPath;
+        colDimensionLogic = other.colDimensionLogic;
+        rowDimensionLogic = other.rowDimensionLogic;
+        colAssumed = other.colAssumed;
+        rowAssumed = other.rowAssumed;
+        farthestX = other.farthestX;
+        farthestY = other.farthestY;
+    }
+
+    @Override
+    public MyAI fork(){
+
+        return new MyAI(this);
+    }
+
+    //put the agent back into its initial state, reusing the knowledge base arrays, so that it can play another game
+    @Override
+    public void reset(){
+
         // Agent Initialization
         goldLooted   = false;
         goldImpossible = false;
         hasArrow     = true;
         wumpusAlive = true;
         wumpusCertain = false;
+        wumpusNearby = false;
         //our initial goal is finding the gold, not killing wumpus
         //if we can grab gold while keeping wumpus alive, it would be awesome!
         killWumpus   = false;
@@ -151,38 +724,29 @@ public class MyAI extends Agent
         lastAgentX  = -1;
         lastAgentY  = -1;
         lastAction   = Action.CLIMB;
-        board = new Tile[maxDimension][maxDimension];			// The game board, max = 7*7
-        for ( int r = 0; r < maxDimension; ++r )
-            for ( int c = 0; c < maxDimension; ++c )
-                board[c][r] = new Tile();
-
-        // Initialize options
-        options = new Options[4]; // Index represents relative direction, e.g. options[3] means upper square
-        for ( int i = 0; i < 4; i++)
-            options[i] = new Options();
-        options[0].xOff = 1;
-        options[1].yOff = -1;
-        options[2].xOff = -1;
-        options[3].yOff = 1;
-
-        colDimensionLogic = maxDimension;
-        rowDimensionLogic = maxDimension;
-
-        actionSequence = new LinkedList<Agent.Action>();
+        resetKnowledge();
+
+        colDimensionLogic = assumedDimension;
+        rowDimensionLogic = assumedDimension;
+        colAssumed = true;
+        rowAssumed = true;
+        farthestX = 0;
+        farthestY = 0;
+
+        actionSequence.clear();
         visitedTiles = 0;
         actionCount = 0;
 
-        initialState = new Node(0,0);
-        nextGoal = new Node(0,0);
-        wumpus = new Node(colDimensionLogic - 1, rowDimensionLogic - 1);
-        DFSqueue = new Stack<Node>();
-        pathToOrigin = new Stack<Node>();
+        nextGoal = initialState;
+        wumpus.x = 0; //not known until wumpusCertain
+        wumpus.y = 0;
+        DFSqueue.clear();
+        pathToOrigin.clear();
+        pathLength = 0;
+        pathGoal = -1;
 
         //debug = false;
         originalPath = false;
-        // ======================================================================
-        // YOUR CODE ENDS
-        // ======================================================================
     }
 
     @Override
@@ -226,6 +790,7 @@ public class MyAI extends Agent
                 case RIGHT:
                     agentX = agentX - 1; //need to revise back
                     colDimensionLogic = agentX + 1;
+                    colAssumed = false;
                     break;
 
                 case DOWN:
@@ -239,9 +804,16 @@ public class MyAI extends Agent
                 case UP:
                     agentY = agentY - 1; //need to revise back
                     rowDimensionLogic = agentY + 1;
+                    rowAssumed = false;
                     break;
             }
 
+            //the known bounds moved, so do the edges of the board, and the squares beyond them hold nothing;
+            //the inferences only change if a breeze or a stench lost a neighbor
+            int cut = closeEdge(agentDir.ordinal());
+            if((cut & BREEZE) != 0) inferPits();
+            if((cut & STENCH) != 0 && wumpusNearby && wumpusAlive && !wumpusCertain) updateWumpusProb();
+
             //because the current goal is invalid (over the boundary), need to re-set goal
             setNextGoal();
             moving = true;
@@ -259,30 +831,18 @@ public class MyAI extends Agent
 
                 wumpusAlive = true;
 
-                switch(agentDir){
-
-                    case RIGHT:
-                        for(int i = agentX; i < colDimensionLogic; i++)
-                            board[i][agentY].wumpusProb = 0;
-                        break;
-
-                    case LEFT:
-                        for(int i = agentX; i >=0; i--)
-                            board[i][agentY].wumpusProb = 0;
-                        break;
+                //the squares along the shot may run off the known board, so remember the shot for squares
+                //that get a slot later (see wumpusPriorAt) and clear the ones that have one
+                missX = agentX;
+                missY = agentY;
+                missDir = agentDir.ordinal();
 
-                    case UP:
-                        for(int i = agentY; i < rowDimensionLogic; i++)
-                            board[agentX][i].wumpusProb = 0;
-                        break;
+                for(int s = 0; s < squares.size(); s++){
 
-                    case DOWN:
-                        for(int i = agentY; i >= 0; i--)
-                            board[agentX][i].wumpusProb = 0;
-                        break;
+                    if(onMissedShot(squares.x(s), squares.y(s))) storeWumpusProb(s, 0);
                 }
 
-                updateWumpusProb(agentX, agentY); //try to infer the location of wumpus
+                if(wumpusNearby) updateWumpusProb(); //try to infer the location of wumpus
             }
         }
 
@@ -317,9 +877,13 @@ public class MyAI extends Agent
             }
 
             //if not bump => store new information
-            if(board[agentX][agentY].visitedNum == 0){
+            int here = addSquare(agentX, agentY);
+
+            if(visitedNum[here] == 0){
 
                 visitedTiles++;
+                farthestX = Math.max(farthestX, agentX);
+                farthestY = Math.max(farthestY, agentY);
             }
 
             //The following rule proves to be useless
@@ -328,34 +892,40 @@ public class MyAI extends Agent
             //goldImpossible = true; //give up
             //}
 
-            board[agentX][agentY].visitedNum++;
+            visitedNum[here]++;
 
             //if this is the first time to visit here...
-            if(board[agentX][agentY].visitedNum == 1){
+            if(visitedNum[here] == 1){
 
                 //Step 1: add new percepts
-                board[agentX][agentY].breeze = breeze; //used to infer pit
-                board[agentX][agentY].stench = stench; //used to infer wumpus
+                if(breeze){ //used to infer pit
+
+                    flags[here] |= BREEZE;
+                    breezes = append(breezes, breezeCount++, here);
+                }
+                if(stench){ //used to infer wumpus
+
+                    flags[here] |= STENCH;
+                    stenches = append(stenches, stenchCount++, here);
+                }
 
                 //Step 2: add new inferences
 
                 //agent still alive means there is neither pit nor wumpus
-                board[agentX][agentY].pitProb = 0;
-                board[agentX][agentY].wumpusProb = 0;
-
-                generateOptions(agentX, agentY);
+                storePitProb(agentX, agentY, 0);
+                storeWumpusProb(agentX, agentY, 0);
 
                 if(!breeze){ //means no pit around
 
                     for(int i = 0; i < 4; i++){
 
-                        if(options[i].valid){
+                        if(hasNeighbor(agentX, agentY, i)){
 
                             int x_1, y_1;
-                            x_1 = agentX + options[i].xOff;
-                            y_1 = agentY + options[i].yOff;
+                            x_1 = agentX + xOff[i];
+                            y_1 = agentY + yOff[i];
 
-                            board[x_1][y_1].pitProb = 0;
+                            storePitProb(x_1, y_1, 0);
                         }
                     }
                 }
@@ -363,17 +933,19 @@ public class MyAI extends Agent
 
                     for(int i = 0; i < 4; i++){
 
-                        if(options[i].valid){
+                        if(hasNeighbor(agentX, agentY, i)){
 
                             int x_1, y_1;
-                            x_1 = agentX + options[i].xOff;
-                            y_1 = agentY + options[i].yOff;
+                            x_1 = agentX + xOff[i];
+                            y_1 = agentY + yOff[i];
 
-                            assignPitProb(x_1, y_1, 1.0);
+                            addSquare(x_1, y_1);
                         }
                     }
                 }
 
+                inferPits();
+
                 //if wumpus alive and uncertain => need to infer wumpus and stench matters
                 if(wumpusAlive && !wumpusCertain){
 
@@ -381,13 +953,13 @@ public class MyAI extends Agent
 
                         for(int i = 0; i < 4; i++){
 
-                            if(options[i].valid){
+                            if(hasNeighbor(agentX, agentY, i)){
 
                                 int x_1, y_1;
-                                x_1 = agentX + options[i].xOff;
-                                y_1 = agentY + options[i].yOff;
+                                x_1 = agentX + xOff[i];
+                                y_1 = agentY + yOff[i];
 
-                                board[x_1][y_1].wumpusProb = 0;
+                                storeWumpusProb(x_1, y_1, 0);
                             }
                         }
                     }
@@ -396,7 +968,8 @@ public class MyAI extends Agent
         }
 
         //after receiving new information, try to infer the location of wumpus
-        if(stench && wumpusAlive && !wumpusCertain) updateWumpusProb(agentX, agentY);
+        if(stench && wumpusAlive) wumpusNearby = true;
+        if(wumpusNearby && wumpusAlive && !wumpusCertain) updateWumpusProb();
 
         //expand the current node to generate children and put them into the stack
         expandNode(agentX, agentY);
@@ -433,17 +1006,15 @@ public class MyAI extends Agent
 
         if(stench && wumpusAlive && killWumpus && hasArrow){
 
-            generateOptions(agentX, agentY);
-
             int i;
 
             for(i = 0; i < 4; i++){
 
-                if(options[i].valid){
+                if(hasNeighbor(agentX, agentY, i)){
 
                     int x_1, y_1;
-                    x_1 = agentX + options[i].xOff;
-                    y_1 = agentY + options[i].yOff;
+                    x_1 = agentX + xOff[i];
+                    y_1 = agentY + yOff[i];
 
                     //got the wumpus
                     if(x_1 == wumpus.x && y_1 == wumpus.y){
@@ -465,7 +1036,7 @@ public class MyAI extends Agent
 
         //give up DFS search if stuck in the same place too long
         //setting the stop-loss threshold to be 6 times number of squares proves to be the optimal
-        if(!goldLooted && !goldImpossible && actionCount > 2*3*colDimensionLogic*rowDimensionLogic){
+        if(!goldLooted && !goldImpossible && actionCount > 2*3*(long)boardCols()*boardRows()){
 
             moving = false;
             goldImpossible = true;
@@ -505,161 +1076,161 @@ public class MyAI extends Agent
     // YOUR CODE BEGINS
     // ======================================================================
 
-    //update probability based on new percepts
-    private void updateWumpusProb(int x, int y){
-
-        generateOptions(x, y);
-
-        int w_count = 0;
+    //exact P(wumpus) once something has smelled: the wumpus is next to every square with a stench, and on none of
+    //the squares proven free of it, so it is equally likely to be on any square left and on no other
+    private void updateWumpusProb(){
 
-        for(int i = 0; i < 4; i++){
-
-            if(options[i].valid){
-
-                int x_1, y_1;
+        if(stenchCount == 0) return;
+        int stench = stenches[0];
 
-                x_1 = x + options[i].xOff;
-                y_1 = y + options[i].yOff;
+        int count = 0, last = -1, candidates = 0;
+        for(int d = 0; d < 4; d++){
 
-                if(board[x_1][y_1].wumpusProb != 0){
+            int n = link[stench*4 + d];
+            if(n >= 0 && isWumpusCandidate(n)){
 
-                    assignWumpusProb(x_1, y_1, 1.0);
-                    wumpus.x = x_1;
-                    wumpus.y = y_1;
-                    w_count++;
-                }
+                count++;
+                last = n;
+                candidates |= 1 << d;
             }
         }
 
-        if(w_count == 1){ //only one square is uncertain => that's it!
+        if(count == 0) return; //the percepts contradict each other, keep what we had
+
+        if(count == 1){ //only one square is left => that's it!
 
+            wumpus.x = squares.x(last);
+            wumpus.y = squares.y(last);
             setWumpusProb(wumpus.x, wumpus.y);
+            return;
         }
-    }
 
-    //update wumpus probability when wumpus location is determined
-    private void setWumpusProb(int x, int y){
+        //squares without a slot get 0 from wumpusPriorAt, and after the first update only the last candidates
+        //can hold anything else, so only they need clearing
+        float p = 1.0f/count;
+        if(wumpusCandidateCount < 0){
 
-        wumpusCertain = true;
+            for(int s = 0; s < squares.size(); s++) storeWumpusProb(s, 0);
+        }
+        else{
 
-        //because there is only one wumpus
-        for(int i = 0; i < colDimensionLogic; i++){
+            for(int i = 0; i < wumpusCandidateCount; i++) storeWumpusProb(wumpusCandidates[i], 0);
+        }
+        wumpusCandidateCount = 0;
+        for(int d = 0; d < 4; d++){
 
-            for(int j = 0; j < rowDimensionLogic; j++){
+            if((candidates & 1 << d) != 0){
 
-                board[i][j].wumpusProb = 0;
+                int n = link[stench*4 + d];
+                storeWumpusProb(n, p);
+                wumpusCandidates[wumpusCandidateCount++] = n;
             }
         }
+    }
 
-        if(wumpusAlive){
+    //not proven free of the wumpus, and next to every square with a stench
+    private boolean isWumpusCandidate(int s){
+
+        if(wumpusProb[s] == 0) return false;
 
-            board[x][y].wumpusProb = 1;
+        int x = squares.x(s), y = squares.y(s);
+        for(int i = 0; i < stenchCount; i++){
+
+            int t = stenches[i];
+            if(Math.abs(squares.x(t) - x) + Math.abs(squares.y(t) - y) != 1) return false;
         }
+        return true;
     }
 
-    //classification of agent's location
-    private enum Location
-    {
-        LEFT_UP,
-        UP,
-        RIGHT_UP,
-        LEFT,
-        MIDDLE,
-        RIGHT,
-        LEFT_DOWN,
-        DOWN,
-        RIGHT_DOWN
-    }
+    //exact P(pit) of the unknown squares next to the breezes, see PitInference
+    private void inferPits(){
 
-    //classify agent's location
-    private Location locationCase(int x,int y){
+        pitInference.clear();
 
-        if(x == 0){
+        for(int i = 0; i < breezeCount; i++){
 
-            if(y == 0) return Location.LEFT_DOWN;
-            if(y == rowDimensionLogic - 1) return Location.LEFT_UP;
-            return Location.LEFT;
-        }
+            int s = breezes[i];
+            int b = pitInference.breeze(squares.x(s), squares.y(s));
+            for(int d = 0; d < 4; d++){
 
-        if(x == colDimensionLogic - 1){
+                int n = link[s*4 + d];
+                if(n >= 0 && pitProb[n] != 0) pitInference.neighbor(b, n, squares.x(n), squares.y(n));
+            }
+        }
+
+        pitInference.solve();
+
+        for(int i = 0; i < pitInference.size(); i++) storePitProb(pitInference.slotAt(i), pitInference.posteriorAt(i));
+    }
+
+    //update wumpus probability when wumpus location is determined
+    private void setWumpusProb(int x, int y){
+
+        wumpusCertain = true;
 
-            if(y == 0) return Location.RIGHT_DOWN;
-            if(y == rowDimensionLogic - 1) return Location.RIGHT_UP;
-            return Location.RIGHT;
+        //because there is only one wumpus; squares without a slot get 0 from wumpusPriorAt
+        for(int s = 0; s < squares.size(); s++){
+
+            storeWumpusProb(s, 0);
         }
 
-        if(y == 0) return Location.DOWN;
-        if(y == rowDimensionLogic - 1) return Location.UP;
-        return Location.MIDDLE;
+        if(wumpusAlive){
+
+            storeWumpusProb(x, y, 1);
+        }
     }
 
-    //generate Options based on Agent Location
-    private void generateOptions(int x,int y){
+    //right is open unless x is on the right edge, up unless y is on the top edge; a square on both edges
+    //of a board one square wide counts as a left (bottom) edge square, so its right (up) neighbor stays open
+    private boolean hasNeighbor(int x, int y, int dir){
 
-        for(int i = 0; i < 4; i++) options[i].valid = false;
+        switch(dir){
 
-        Location location = locationCase(x,y);
+            case 0: return x == 0 || x != colDimensionLogic - 1;
+            case 1: return y != 0;
+            case 2: return x != 0;
+            default: return y == 0 || y != rowDimensionLogic - 1;
+        }
+    }
 
-        switch(location){
+    //link the square to the adjacent squares that have slots, both ways
+    private void linkSquare(int s){
 
-            case LEFT_DOWN:
-                options[0].valid = true;
-                options[3].valid = true;
-                break;
+        int x = squares.x(s);
+        int y = squares.y(s);
 
-            case LEFT:
-                options[0].valid = true;
-                options[1].valid = true;
-                options[3].valid = true;
-                break;
+        for(int d = 0; d < 4; d++){
 
-            case LEFT_UP:
-                options[0].valid = true;
-                options[1].valid = true;
-                break;
+            link[s*4 + d] = -1;
+            if(!hasNeighbor(x, y, d)) continue;
 
-            case DOWN:
-                options[0].valid = true;
-                options[2].valid = true;
-                options[3].valid = true;
-                break;
+            int n = slot(x + xOff[d], y + yOff[d]);
+            if(n < 0) continue;
 
-            case MIDDLE:
-                options[0].valid = true;
-                options[1].valid = true;
-                options[2].valid = true;
-                options[3].valid = true;
-                break;
+            link[s*4 + d] = n;
+            if(hasNeighbor(x + xOff[d], y + yOff[d], (d + 2) & 3)) link[n*4 + ((d + 2) & 3)] = s;
+        }
+    }
 
-            case UP:
-                options[0].valid = true;
-                options[1].valid = true;
-                options[2].valid = true;
-                break;
+    //the agent bumped into the wall in direction dir, so the squares along it lose their link past it
+    //returns the flags of the squares that lost one
+    private int closeEdge(int dir){
 
-            case RIGHT_DOWN:
-                options[2].valid = true;
-                options[3].valid = true;
-                break;
+        int cut = 0;
+        for(int s = 0; s < squares.size(); s++){
 
-            case RIGHT:
-                options[1].valid = true;
-                options[2].valid = true;
-                options[3].valid = true;
-                break;
+            if(link[s*4 + dir] >= 0 && !hasNeighbor(squares.x(s), squares.y(s), dir)){
 
-            case RIGHT_UP:
-                options[1].valid = true;
-                options[2].valid = true;
-                break;
+                link[s*4 + dir] = -1;
+                cut |= flags[s];
+            }
         }
+        return cut;
     }
 
     //generate children and put them into the stack
     private void expandNode(int x, int y){
 
-        generateOptions(x,y);
-
         //add back children first so that they will be expanded last
         int backChild;
         backChild = agentDir.ordinal() + 2;
@@ -681,25 +1252,15 @@ public class MyAI extends Agent
 
     private void expandNode_1(int x, int y, int i){
 
-        if(options[i].valid){
+        //a square without a slot is not safe, so following the link misses no candidate
+        int s = link[slot(x, y)*4 + i];
 
-            int x_1, y_1;
+        //only add 100% safe and unexplored nodes; do not add the node if it has been in the queue
+        if(s >= 0 && isSafe(s) && visitedNum[s] == 0 && (flags[s] & QUEUED) == 0){
 
-            x_1 = x + options[i].xOff;
-            y_1 = y + options[i].yOff;
+            if(DFSqueue.push(s)){ //not yet been added
 
-            //only add 100% safe and unexplored nodes; do not add the node if it has been in the queue
-            if(safeProb(x_1, y_1) == 1 && board[x_1][y_1].visitedNum == 0 && !board[x_1][y_1].queue){
-
-                Node node = new Node(x_1, y_1);
-                node.parentX = x;
-                node.parentY = y;
-
-                if(DFSqueue.search(node) == -1){ //not yet been added
-
-                    DFSqueue.push(node);
-                    board[x_1][y_1].queue = true;
-                }
+                flags[s] |= QUEUED;
             }
         }
     }
@@ -715,28 +1276,28 @@ public class MyAI extends Agent
             case 0:
                 if(colDimensionLogic - 1 > agentX){
 
-                    if(board[agentX+1][agentY].pitProb == 0) valid = true;
+                    if(pitProbAt(agentX+1, agentY) == 0) valid = true;
                 }
                 break;
 
             case 1:
                 if(0 < agentY){
 
-                    if(board[agentX][agentY-1].pitProb == 0) valid = true;
+                    if(pitProbAt(agentX, agentY-1) == 0) valid = true;
                 }
                 break;
 
             case 2:
                 if(0 < agentX){
 
-                    if(board[agentX-1][agentY].pitProb == 0) valid = true;
+                    if(pitProbAt(agentX-1, agentY) == 0) valid = true;
                 }
                 break;
 
             case 3:
                 if(rowDimensionLogic - 1 > agentY){
 
-                    if(board[agentX][agentY+1].pitProb == 0) valid = true;
+                    if(pitProbAt(agentX, agentY+1) == 0) valid = true;
                 }
                 break;
         }
@@ -744,16 +1305,487 @@ public class MyAI extends Agent
         return valid;
     }
 
-    //set the top of the stack to be the next goal
+    //number of actions to turn from direction oldDir to direction newDir and move forward
+    private static int moveCost(int oldDir, int newDir){
+
+        return (newDir - oldDir + 4) % 4 == 2 ? 3 : (newDir == oldDir ? 1 : 2);
+    }
+
+    //one Dijkstra over (square, heading) states from the agent's square and heading, through safe squares only,
+    //that stops as soon as the cheapest goal has been settled, and leaves the path to it in pathToGoal
+    //state = slot*4 + heading; each move costs 1 to 3 actions, so the open states fit in four cost buckets (Dial's algorithm)
+    //and a bucket never holds a state twice; the arrays are stamped with the sweep number instead of being cleared,
+    //and grow with the knowledge base
+    private class FrontierSweep
+    {
+        private int[] cost = new int[0];
+        private int[] stamp = new int[0];
+        private int[] parent = new int[0];
+        private final int[][] bucket = new int[4][0];
+        private final int[] bucketSize = new int[4];
+        private int run = 0;
+
+        //the square on DFSqueue that is cheapest to reach, ties going to the one nearest the top of the stack, or -1
+        int cheapestFrontier(){
+
+            return search(-1);
+        }
+
+        //the target square if it can be reached over safe squares, or -1
+        int pathTo(int target){
+
+            return search(target);
+        }
+
+        //target < 0 searches for the frontier
+        private int search(int target){
+
+            int start = addSquare(agentX, agentY);
+
+            if(stamp.length < visitedNum.length*4){
+
+                int states = visitedNum.length*4;
+                cost = new int[states];
+                stamp = new int[states];
+                parent = new int[states];
+                for(int i = 0; i < 4; i++) bucket[i] = new int[states];
+                pathToGoal = new int[visitedNum.length];
+                run = 0;
+            }
+
+            if(++run == 0){ //the stamps wrapped around
+
+                Arrays.fill(stamp, 0);
+                run = 1;
+            }
+            Arrays.fill(bucketSize, 0);
+
+            int queued = lower(start*4 + agentDir.ordinal(), 0, -1);
+
+            int best = -1, bestState = -1, bestCost = 0, bestIndex = -1;
+
+            for(int cur = 0; queued > 0; cur++){
+
+                if(best >= 0 && cur > bestCost) break;
+
+                int[] open = bucket[cur & 3];
+                while(bucketSize[cur & 3] > 0){
+
+                    int state = open[--bucketSize[cur & 3]];
+                    queued--;
+                    if(cost[state] != cur) continue; //already settled more cheaply
+
+                    int square = state >> 2;
+                    int heading = state & 3;
+
+                    if(square != start && (target < 0 ? DFSqueue.contains(square) : square == target)){
+
+                        int index = target < 0 ? DFSqueue.indexOf(square) : 0;
+                        if(index > bestIndex){
+
+                            best = square;
+                            bestState = state;
+                            bestCost = cur;
+                            bestIndex = index;
+                        }
+                        continue; //a goal, not a waypoint
+                    }
+
+                    for(int d = 0; d < 4; d++){
+
+                        int next = link[square*4 + d];
+                        if(next < 0 || !isSafe(next)) continue;
+
+                        queued += lower(next*4 + d, cur + moveCost(heading, d), state);
+                    }
+                }
+            }
+
+            pathLength = 0;
+            pathGoal = best;
+            for(int state = bestState; state >= 0 && state >> 2 != start; state = parent[state]){
+
+                pathToGoal[pathLength++] = state >> 2;
+            }
+
+            return best;
+        }
+
+        //returns 1 if the state was queued at the new cost
+        private int lower(int state, int c, int from){
+
+            if(stamp[state] == run && cost[state] <= c) return 0;
+
+            stamp[state] = run;
+            cost[state] = c;
+            parent[state] = from;
+            bucket[c & 3][bucketSize[c & 3]++] = state;
+            return 1;
+        }
+    }
+
+    //exact P(pit) of the unknown squares next to breezes: every breeze needs a pit on one of its unknown neighbors,
+    //and every other square keeps the prior. Breezes that share no unknown neighbor are independent, so the squares
+    //split into components that are enumerated on their own, and a component is described up to translation by
+    //where its breezes and unknown squares are, so its posterior is memoized under that shape and solved once
+    private static class PitInference
+    {
+        private static final int MAX_SQUARES = 20;     // a bigger component is too big to enumerate, see solveComponent
+        private static final int MAX_MEMO = 1 << 16;   // shapes remembered before the memo starts over
+
+        //the breezes of this call, and their unknown neighbors
+        private int breezes = 0;
+        private int[] breezeX = new int[16], breezeY = new int[16];
+        private int[] breezeSquares = new int[16*4];    // breezeSquares[b*4 + i] is the i-th unknown neighbor of b
+        private int[] breezeDegree = new int[16];
+        private int[] root = new int[16];               // union-find over breezes that share a square
+
+        //the unknown squares of this call, by the caller's slot
+        private int squares = 0;
+        private int[] squareSlot = new int[16], squareX = new int[16], squareY = new int[16];
+        private int[] owner = new int[16];              // a breeze next to the square
+        private float[] posterior = new float[16];
+        private int[] squareOf = new int[64];           // slot -> square + 1 of this call, 0 if none
+        private int[] stamp = new int[64];
+        private int call = 0;
+
+        //one component at a time: its breezes and squares, squares sorted into canonical order
+        private int[] memberBreeze = new int[16], memberSquare = new int[16], rank = new int[16];
+        private final int[] mask = new int[4*MAX_SQUARES];
+        private final double[] marginal = new double[MAX_SQUARES];
+
+        //shape (width | height << 8, breeze mask, square mask) -> posteriors of the squares in canonical order
+        private int memoSize = 0;
+        private int[] memoShape = new int[256];         // 0 is empty
+        private long[] memoBreezes = new long[256], memoSquares = new long[256];
+        private float[][] memoPosterior = new float[256][];
+        private boolean memoShared = false;             // another PitInference reads the same tables
+
+        PitInference(){
+        }
+
+        //an inference for a fork: its own scratch arrays, and the memo of other, shared until either one remembers
+        //a new shape; the posteriors themselves are never written after they are remembered
+        PitInference(PitInference other){
+
+            memoSize = other.memoSize;
+            memoShape = other.memoShape;
+            memoBreezes = other.memoBreezes;
+            memoSquares = other.memoSquares;
+            memoPosterior = other.memoPosterior;
+            memoShared = other.memoShared = true;
+        }
+
+        void clear(){
+
+            breezes = 0;
+            squares = 0;
+            if(++call == 0){ //the stamps wrapped around
+
+                Arrays.fill(stamp, 0);
+                call = 1;
+            }
+        }
+
+        //a visited square with a breeze; returns its index for neighbor
+        int breeze(int x, int y){
+
+            if(breezes == breezeX.length){
+
+                int capacity = 2*breezes;
+                breezeX = Arrays.copyOf(breezeX, capacity);
+                breezeY = Arrays.copyOf(breezeY, capacity);
+                breezeSquares = Arrays.copyOf(breezeSquares, capacity*4);
+                breezeDegree = Arrays.copyOf(breezeDegree, capacity);
+                root = Arrays.copyOf(root, capacity);
+                memberBreeze = Arrays.copyOf(memberBreeze, capacity);
+            }
+
+            breezeX[breezes] = x;
+            breezeY[breezes] = y;
+            breezeDegree[breezes] = 0;
+            root[breezes] = breezes;
+            return breezes++;
+        }
+
+        //an unknown square (slot, at x, y) next to breeze b
+        void neighbor(int b, int slot, int x, int y){
+
+            if(slot >= squareOf.length){
+
+                squareOf = Arrays.copyOf(squareOf, Math.max(2*squareOf.length, slot + 1));
+                stamp = Arrays.copyOf(stamp, squareOf.length);
+            }
+
+            int q;
+            if(stamp[slot] == call){
+
+                q = squareOf[slot] - 1;
+                union(b, owner[q]);
+            }
+            else{
+
+                if(squares == squareSlot.length){
+
+                    int capacity = 2*squares;
+                    squareSlot = Arrays.copyOf(squareSlot, capacity);
+                    squareX = Arrays.copyOf(squareX, capacity);
+                    squareY = Arrays.copyOf(squareY, capacity);
+                    owner = Arrays.copyOf(owner, capacity);
+                    posterior = Arrays.copyOf(posterior, capacity);
+                    memberSquare = Arrays.copyOf(memberSquare, capacity);
+                    rank = Arrays.copyOf(rank, capacity);
+                }
+
+                q = squares++;
+                stamp[slot] = call;
+                squareOf[slot] = q + 1;
+                squareSlot[q] = slot;
+                squareX[q] = x;
+                squareY[q] = y;
+                owner[q] = b;
+            }
+
+            breezeSquares[b*4 + breezeDegree[b]++] = q;
+        }
+
+        int size(){
+
+            return squares;
+        }
+
+        int slotAt(int q){
+
+            return squareSlot[q];
+        }
+
+        float posteriorAt(int q){
+
+            return posterior[q];
+        }
+
+        //works out posteriorAt for every square, one component at a time
+        void solve(){
+
+            for(int b = 0; b < breezes; b++) root[b] = find(b);
+
+            for(int r = 0; r < breezes; r++){
+
+                if(root[r] != r) continue;
+
+                int numOfBreezes = 0, numOfSquares = 0;
+                for(int b = r; b < breezes; b++) if(root[b] == r) memberBreeze[numOfBreezes++] = b;
+                for(int q = 0; q < squares; q++) if(root[owner[q]] == r) memberSquare[numOfSquares++] = q;
+
+                if(numOfSquares > 0) solveComponent(numOfBreezes, numOfSquares);
+            }
+        }
+
+        private void solveComponent(int numOfBreezes, int numOfSquares){
+
+            int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE;
+            for(int i = 0; i < numOfBreezes; i++){
+
+                int b = memberBreeze[i];
+                minX = Math.min(minX, breezeX[b]); maxX = Math.max(maxX, breezeX[b]);
+                minY = Math.min(minY, breezeY[b]); maxY = Math.max(maxY, breezeY[b]);
+            }
+            for(int i = 0; i < numOfSquares; i++){
+
+                int q = memberSquare[i];
+                minX = Math.min(minX, squareX[q]); maxX = Math.max(maxX, squareX[q]);
+                minY = Math.min(minY, squareY[q]); maxY = Math.max(maxY, squareY[q]);
+            }
+            long width = (long)maxX - minX + 1, height = (long)maxY - minY + 1;
+
+            //canonical order: row by row within the bounding box, which does not depend on where the component is
+            for(int i = 1; i < numOfSquares; i++){
+
+                int q = memberSquare[i], j = i;
+                for(; j > 0 && before(q, memberSquare[j - 1], minX, minY, width); j--) memberSquare[j] = memberSquare[j - 1];
+                memberSquare[j] = q;
+            }
+            for(int i = 0; i < numOfSquares; i++) rank[memberSquare[i]] = i;
+
+            if(numOfSquares > MAX_SQUARES){ //too many layouts: give up on them and call every square a pit
+
+                for(int i = 0; i < numOfSquares; i++) posterior[memberSquare[i]] = 1;
+                return;
+            }
+
+            //the shape fits in two longs when the bounding box has at most 64 squares
+            boolean memoize = width*height <= 64;
+            int shape = 0;
+            long breezeBits = 0, squareBits = 0;
+            if(memoize){
+
+                shape = (int)(width | height << 8);
+                for(int i = 0; i < numOfBreezes; i++){
+
+                    int b = memberBreeze[i];
+                    breezeBits |= 1L << ((breezeY[b] - minY)*width + breezeX[b] - minX);
+                }
+                for(int i = 0; i < numOfSquares; i++){
+
+                    int q = memberSquare[i];
+                    squareBits |= 1L << ((squareY[q] - minY)*width + squareX[q] - minX);
+                }
+
+                float[] known = lookup(shape, breezeBits, squareBits);
+                if(known != null){
+
+                    for(int i = 0; i < numOfSquares; i++) posterior[memberSquare[i]] = known[i];
+                    return;
+                }
+            }
+
+            float[] result = enumerate(numOfBreezes, numOfSquares);
+            for(int i = 0; i < numOfSquares; i++) posterior[memberSquare[i]] = result[i];
+            if(memoize) remember(shape, breezeBits, squareBits, result);
+        }
+
+        //every layout of the component's squares that gives each of its breezes a pit, weighted by the prior
+        private float[] enumerate(int numOfBreezes, int numOfSquares){
+
+            for(int i = 0; i < numOfBreezes; i++){
+
+                int b = memberBreeze[i], m = 0;
+                for(int j = 0; j < breezeDegree[b]; j++) m |= 1 << rank[breezeSquares[b*4 + j]];
+                mask[i] = m;
+            }
+
+            double[] weight = new double[numOfSquares + 1];
+            for(int pits = 0; pits <= numOfSquares; pits++) weight[pits] = Math.pow(0.2, pits)*Math.pow(0.8, numOfSquares - pits);
+
+            Arrays.fill(marginal, 0, numOfSquares, 0);
+            double total = 0;
+
+            for(int layout = 1; layout < 1 << numOfSquares; layout++){
+
+                int i = 0;
+                while(i < numOfBreezes && (layout & mask[i]) != 0) i++;
+                if(i < numOfBreezes) continue;
+
+                double w = weight[Integer.bitCount(layout)];
+                total += w;
+                for(int l = layout; l != 0; l &= l - 1) marginal[Integer.numberOfTrailingZeros(l)] += w;
+            }
+
+            float[] result = new float[numOfSquares];
+            for(int i = 0; i < numOfSquares; i++) result[i] = total > 0 ? (float)(marginal[i]/total) : 1;
+            return result;
+        }
+
+        private boolean before(int q, int other, int minX, int minY, long width){
+
+            return (squareY[q] - minY)*width + squareX[q] - minX < (squareY[other] - minY)*width + squareX[other] - minX;
+        }
+
+        private int find(int b){
+
+            while(root[b] != b){
+
+                root[b] = root[root[b]];
+                b = root[b];
+            }
+            return b;
+        }
+
+        private void union(int a, int b){
+
+            a = find(a);
+            b = find(b);
+            if(a < b) root[b] = a;
+            else root[a] = b;
+        }
+
+        private float[] lookup(int shape, long breezeBits, long squareBits){
+
+            int mask = memoShape.length - 1;
+            for(int i = hash(shape, breezeBits, squareBits) & mask; memoShape[i] != 0; i = (i + 1) & mask){
+
+                if(memoShape[i] == shape && memoBreezes[i] == breezeBits && memoSquares[i] == squareBits) return memoPosterior[i];
+            }
+            return null;
+        }
+
+        private void remember(int shape, long breezeBits, long squareBits, float[] result){
+
+            if(memoShared){ //copy on write
+
+                memoShape = memoShape.clone();
+                memoBreezes = memoBreezes.clone();
+                memoSquares = memoSquares.clone();
+                memoPosterior = memoPosterior.clone();
+                memoShared = false;
+            }
+
+            if(memoSize == MAX_MEMO){
+
+                Arrays.fill(memoShape, 0);
+                Arrays.fill(memoPosterior, null);
+                memoSize = 0;
+            }
+
+            if(2*(memoSize + 1) > memoShape.length){ //grow the table and hash every shape again
+
+                int[] shapes = memoShape;
+                long[] breezeKeys = memoBreezes, squareKeys = memoSquares;
+                float[][] posteriors = memoPosterior;
+
+                memoShape = new int[2*shapes.length];
+                memoBreezes = new long[2*shapes.length];
+                memoSquares = new long[2*shapes.length];
+                memoPosterior = new float[2*shapes.length][];
+                for(int i = 0; i < shapes.length; i++){
+
+                    if(shapes[i] != 0) insert(shapes[i], breezeKeys[i], squareKeys[i], posteriors[i]);
+                }
+            }
+
+            insert(shape, breezeBits, squareBits, result);
+            memoSize++;
+        }
+
+        private void insert(int shape, long breezeBits, long squareBits, float[] result){
+
+            int mask = memoShape.length - 1;
+            int i = hash(shape, breezeBits, squareBits) & mask;
+            while(memoShape[i] != 0) i = (i + 1) & mask;
+            memoShape[i] = shape;
+            memoBreezes[i] = breezeBits;
+            memoSquares[i] = squareBits;
+            memoPosterior[i] = result;
+        }
+
+        private static int hash(int shape, long breezeBits, long squareBits){
+
+            long h = (breezeBits*0x9E3779B97F4A7C15L ^ squareBits)*0xBF58476D1CE4E5B9L ^ shape;
+            return (int)((h*0x94D049BB133111EBL) >>> 32);
+        }
+    }
+
+    //set the cheapest frontier square to reach to be the next goal
     private void setNextGoal(){
 
+        //an edge the agent only assumed is right ahead, and nothing past it can be dangerous, so one move settles it
+        int here = slot(agentX, agentY);
+        if((flags[here] & BREEZE) == 0 && (!wumpusAlive || (flags[here] & STENCH) == 0)){
+
+            if(colAssumed && agentDir == AgentDirection.RIGHT && agentX == colDimensionLogic - 1) liftAssumedBounds(true, false);
+            if(rowAssumed && agentDir == AgentDirection.UP && agentY == rowDimensionLogic - 1) liftAssumedBounds(false, true);
+        }
+
         do{
+            //the board may go on past an edge the agent only assumed, so look there before giving up
+            if(DFSqueue.isEmpty() && !canKillWumpus()) liftAssumedBounds(colAssumed, rowAssumed);
+
             //if the queue becomes empty, it means that there is no 100% safe and unexplored node
             //it is very likely that gold is in a pit or surrounded by pits => give up!
-            if(DFSqueue.empty()){
+            if(DFSqueue.isEmpty()){
 
                 //maybe wumpus holds the gold => kill wumpus!
-                if(!killWumpus && wumpusAlive && wumpusCertain && hasArrow && board[wumpus.x][wumpus.y].pitProb == 0){
+                if(canKillWumpus()){
 
                     killWumpus = true;
                     nextGoal = wumpus;
@@ -766,7 +1798,14 @@ public class MyAI extends Agent
             }
             else{
 
-                nextGoal = DFSqueue.pop();
+                //the cheapest frontier square to reach; if none can be reached over safe squares, fall back to the top
+                int goal = sweep.cheapestFrontier();
+                if(goal < 0) goal = DFSqueue.pop();
+                else DFSqueue.remove(goal);
+
+                frontierGoal.x = squares.x(goal);
+                frontierGoal.y = squares.y(goal);
+                nextGoal = frontierGoal;
             }
 
         }while(!(nextGoal.x < colDimensionLogic && nextGoal.y < rowDimensionLogic));
@@ -774,65 +1813,141 @@ public class MyAI extends Agent
         //so need to check if it is within the boundary before expanding it
     }
 
-    //decide how to move to the next goal
-    //randomize methods to avoid sticking around
-    private Action moveToGoal(){
+    private boolean canKillWumpus(){
 
-        generateOptions(agentX, agentY);
+        return !killWumpus && wumpusAlive && wumpusCertain && hasArrow && pitProbAt(wumpus.x, wumpus.y) == 0;
+    }
 
-        if(originalPath){
+    //stop assuming the bounds no bump has confirmed, and learn about the squares past the old edges from the
+    //percepts of the visited squares along them, the way the first visit would have if the edge had not been there
+    //a square past the edge is next to one visited square at most, so the wumpus can only be there if that square
+    //holds the one stench; a location inferred inside the old edges is then in doubt again
+    private void liftAssumedBounds(boolean cols, boolean rows){
 
-            return followOriginalPath();
+        if(!cols && !rows) return;
+
+        int edgeX = cols ? colDimensionLogic - 1 : -1;
+        int edgeY = rows ? rowDimensionLogic - 1 : -1;
+        if(cols){
+
+            colDimensionLogic = UNKNOWN;
+            colAssumed = false;
         }
+        if(rows){
 
-        int validCount = 0;
-        LinkedList<Integer> moveMethods = new LinkedList<Integer>();
-        LinkedList<Integer> moveMethods_1 = new LinkedList<Integer>();
+            rowDimensionLogic = UNKNOWN;
+            rowAssumed = false;
+        }
 
-        for(int i = 0; i < 4; i++){
+        //nothing past an assumed edge has a slot, so the squares added here link themselves to the edge
+        boolean breezePast = false, wumpusPast = false;
+        for(int s = 0; s < squares.size(); s++){
+
+            if(visitedNum[s] == 0) continue;
+
+            int x = squares.x(s), y = squares.y(s);
+            for(int i = 0; i < 4; i += 3){ //right and up
 
-            if(options[i].valid) {
+                if(i == 0 ? x != edgeX : y != edgeY) continue;
+
+                int x_1 = x + xOff[i];
+                int y_1 = y + yOff[i];
+
+                if((flags[s] & BREEZE) == 0) storePitProb(x_1, y_1, 0);
+                else{
+
+                    addSquare(x_1, y_1);
+                    breezePast = true;
+                }
+
+                if(!wumpusAlive) continue;
+
+                if((flags[s] & STENCH) == 0){
+
+                    if(!wumpusCertain) storeWumpusProb(x_1, y_1, 0);
+                }
+                else if(stenchCount == 1 && !onMissedShot(x_1, y_1)){
 
-                validCount++;
-                moveMethods.addLast(i);
-                moveMethods_1.addLast(i);
+                    storeWumpusProb(x_1, y_1, wumpusPrior); //not 0 is all updateWumpusProb needs
+                    wumpusPast = true;
+                }
+            }
+        }
+
+        if(breezePast) inferPits();
+        if(wumpusPast){
+
+            //the inferred location, if any, has P(wumpus) = 1 and stays a candidate; every other slot was cleared
+            wumpusCertain = false;
+            wumpusCandidateCount = -1;
+            updateWumpusProb();
+        }
+
+        for(int s = 0; s < squares.size(); s++){
+
+            if(visitedNum[s] > 0 && (squares.x(s) == edgeX || squares.y(s) == edgeY)){
+
+                expandNode(squares.x(s), squares.y(s));
+            }
+        }
+    }
+
+    //decide how to move to the next goal
+    //randomize methods to avoid sticking around
+    private Action moveToGoal(){
+
+        //follow the cheapest path over safe squares if there is one, dropping it if the agent has left it
+        //the wumpus's square is never safe, so the way to it is left to the moves below
+        int goal = slot(nextGoal.x, nextGoal.y);
+        if(nextGoal != wumpus && goal >= 0 && (pathGoal != goal || pathLength == 0)) sweep.pathTo(goal);
+
+        if(nextGoal != wumpus && goal >= 0 && pathGoal == goal && pathLength > 0){
+
+            int next = pathToGoal[--pathLength];
+            int here = slot(agentX, agentY)*4;
+
+            for(int i = 0; i < 4; i++){
+
+                if(link[here + i] == next) return addActionSequence(agentDir, DIRECTIONS[i]);
             }
+
+            pathLength = 0;
         }
 
-        double randomSelector;
-        int selector, method, counter;
+        if(originalPath){
+
+            return followOriginalPath();
+        }
 
-        counter = validCount;
+        int method, counter;
 
         //first, select the possibly shortest path to goal
-        while(!moveMethods.isEmpty() && counter!=0){
+        counter = fillMoveMethods();
 
-            randomSelector = Math.random(); //between 0 and 1
-            selector = (int)(randomSelector/(1.0/counter));
+        while(counter != 0){
 
-            method = moveMethods.get(selector);
-            moveMethods.remove(selector);
+            method = takeMoveMethod(counter);
             counter--;
 
             switch(method){
 
                 case 0:
-                    if(nextGoal.x > agentX && safeProb(agentX+1, agentY) == 1)
+                    if(nextGoal.x > agentX && isSafe(agentX+1, agentY))
                         return addActionSequence(agentDir, AgentDirection.RIGHT);
                     break;
 
                 case 1:
-                    if(nextGoal.y < agentY && safeProb(agentX, agentY-1) == 1)
+                    if(nextGoal.y < agentY && isSafe(agentX, agentY-1))
                         return addActionSequence(agentDir, AgentDirection.DOWN);
                     break;
 
                 case 2:
-                    if(nextGoal.x < agentX && safeProb(agentX-1, agentY) == 1)
+                    if(nextGoal.x < agentX && isSafe(agentX-1, agentY))
                         return addActionSequence(agentDir, AgentDirection.LEFT);
                     break;
 
                 case 3:
-                    if(nextGoal.y > agentY && safeProb(agentX, agentY+1) == 1)
+                    if(nextGoal.y > agentY && isSafe(agentX, agentY+1))
                         return addActionSequence(agentDir, AgentDirection.UP);
                     break;
             }
@@ -842,41 +1957,37 @@ public class MyAI extends Agent
         if((goldLooted || goldImpossible) && !originalPath){
 
             originalPath = true;
-            pathToOrigin.pop(); //pop the current location, move to the previous location
+            if(!pathToOrigin.isEmpty()) pathToOrigin.pop(); //pop the current location, move to the previous location
             return followOriginalPath();
         }
 
         //otherwise, randomly select a safe path to goal
-        counter = validCount;
-
-        while(!moveMethods_1.isEmpty() && counter!=0){
+        counter = fillMoveMethods();
 
-            randomSelector = Math.random(); //between 0 and 1
-            selector = (int)(randomSelector/(1.0/counter));
+        while(counter != 0){
 
-            method = moveMethods_1.get(selector);
-            moveMethods_1.remove(selector);
+            method = takeMoveMethod(counter);
             counter--;
 
             switch(method){
 
                 case 0:
-                    if(safeProb(agentX+1, agentY) == 1)
+                    if(isSafe(agentX+1, agentY))
                         return addActionSequence(agentDir, AgentDirection.RIGHT);
                     break;
 
                 case 1:
-                    if(safeProb(agentX, agentY-1) == 1)
+                    if(isSafe(agentX, agentY-1))
                         return addActionSequence(agentDir, AgentDirection.DOWN);
                     break;
 
                 case 2:
-                    if(safeProb(agentX-1, agentY) == 1)
+                    if(isSafe(agentX-1, agentY))
                         return addActionSequence(agentDir, AgentDirection.LEFT);
                     break;
 
                 case 3:
-                    if(safeProb(agentX, agentY+1) == 1)
+                    if(isSafe(agentX, agentY+1))
                         return addActionSequence(agentDir, AgentDirection.UP);
                     break;
             }
@@ -887,19 +1998,43 @@ public class MyAI extends Agent
         return Action.GRAB;
     }
 
+    //put the directions the agent can move in into moveMethods, in order; returns how many there are
+    private int fillMoveMethods(){
+
+        int validCount = 0;
+
+        for(int i = 0; i < 4; i++){
+
+            if(hasNeighbor(agentX, agentY, i)) moveMethods[validCount++] = i;
+        }
+
+        return validCount;
+    }
+
+    //pick one of the first counter directions of moveMethods at random and take it out, keeping the others in order
+    private int takeMoveMethod(int counter){
+
+        int selector = nextRandomInt(counter);
+        int method = moveMethods[selector];
+
+        for(int i = selector; i < counter - 1; i++) moveMethods[i] = moveMethods[i + 1];
+
+        return method;
+    }
+
     //if the path to the origin is not straightforward, better follow the original path to avoid getting stuck
     private Action followOriginalPath(){
 
-        Node node = pathToOrigin.pop();
+        Node node = pathToOrigin.isEmpty() ? null : pathToOrigin.pop();
 
-        for(int i = 0; i < 4; i++){
+        for(int i = 0; i < 4 && node != null; i++){
 
-            if(options[i].valid){
+            if(hasNeighbor(agentX, agentY, i)){
 
                 int x_1, y_1;
 
-                x_1 = agentX + options[i].xOff;
-                y_1 = agentY + options[i].yOff;
+                x_1 = agentX + xOff[i];
+                y_1 = agentY + yOff[i];
 
                 if(x_1 == node.x && y_1 == node.y){
 
@@ -935,98 +2070,13 @@ public class MyAI extends Agent
         lastAgentDir = agentDir;
 
         //update location
-        agentX = agentX + options[desiredDirection.ordinal()].xOff;
-        agentY = agentY + options[desiredDirection.ordinal()].yOff;
+        agentX = agentX + xOff[desiredDirection.ordinal()];
+        agentY = agentY + yOff[desiredDirection.ordinal()];
         agentDir = desiredDirection;
 
         lastAction = Action.FORWARD;
 
-        switch(currentDirection) {
-
-            case RIGHT:
-                switch(desiredDirection) {
-                    case RIGHT: // Facing R, go R: {F}
-                        return Action.FORWARD;
-
-                    case DOWN: // Facing R, go D: {R -> F}
-                        actionSequence.addLast(Action.FORWARD);
-                        return Action.TURN_RIGHT;
-
-                    case LEFT: // Facing R, go L: {L -> L -> F}
-                        actionSequence.addLast(Action.TURN_LEFT);
-                        actionSequence.addLast(Action.FORWARD);
-                        return Action.TURN_LEFT;
-
-                    case UP: // Facing R, go U: {L -> F}
-                        actionSequence.addLast(Action.FORWARD);
-                        return Action.TURN_LEFT;
-                }
-
-            case DOWN:
-                switch(desiredDirection) {
-                    case RIGHT: // Facing D, go R: {L -> F}
-                        actionSequence.addLast(Action.FORWARD);
-                        return Action.TURN_LEFT;
-
-                    case DOWN: // Facing D, go D: {F}
-                        return Action.FORWARD;
-
-                    case LEFT: // Facing D, go L: {R -> F}
-                        actionSequence.addLast(Action.FORWARD);
-                        return Action.TURN_RIGHT;
-
-                    case UP: // Facing D, go U: {L -> L -> F}
-                        actionSequence.addLast(Action.TURN_LEFT);
-                        actionSequence.addLast(Action.FORWARD);
-                        return Action.TURN_LEFT;
-                }
-
-            case LEFT:
-                switch(desiredDirection) {
-                    case RIGHT: // Facing L, go R: {L -> L -> F}
-                        actionSequence.addLast(Action.TURN_LEFT);
-                        actionSequence.addLast(Action.FORWARD);
-                        return Action.TURN_LEFT;
-
-                    case DOWN: // Facing L, go D: {L -> F}
-                        actionSequence.addLast(Action.FORWARD);
-                        return Action.TURN_LEFT;
-
-                    case LEFT: // Facing L, go L: {F}
-                        return Action.FORWARD;
-
-                    case UP: // Facing L, go U: {R -> F}
-                        actionSequence.addLast(Action.FORWARD);
-                        return Action.TURN_RIGHT;
-                }
-
-            case UP:
-                switch(desiredDirection) {
-                    case RIGHT: // Facing U, go R: {R -> F}
-                        actionSequence.addLast(Action.FORWARD);
-                        return Action.TURN_RIGHT;
-
-                    case DOWN: // Facing U, go D: {L -> L -> F}
-                        actionSequence.addLast(Action.TURN_LEFT);
-                        actionSequence.addLast(Action.FORWARD);
-                        return Action.TURN_LEFT;
-
-                    case LEFT: // Facing U, go L: {L -> F}
-                        actionSequence.addLast(Action.FORWARD);
-                        return Action.TURN_LEFT;
-
-                    case UP: // Facing U, go U: {F}
-                        return Action.FORWARD;
-                }
-        }
-
-        //GRAB won't affect any future decision, so set it as default action
-        agentX = lastAgentX;
-        agentY = lastAgentY;
-        agentDir = lastAgentDir;
-
-        lastAction = Action.GRAB;
-        return Action.GRAB;
+        return startSequence(MOVE_SEQUENCE[currentDirection.ordinal()*4 + desiredDirection.ordinal()]);
     }
 
     private Agent.Action startKillWumpus(AgentDirection currentDirection, int desiredDirection) {
@@ -1037,8 +2087,8 @@ public class MyAI extends Agent
         lastAgentDir = agentDir;
 
         //update location
-        agentX = agentX + options[desiredDirection].xOff;
-        agentY = agentY + options[desiredDirection].yOff;
+        agentX = agentX + xOff[desiredDirection];
+        agentY = agentY + yOff[desiredDirection];
 
         switch(desiredDirection) {
 
@@ -1064,107 +2114,15 @@ public class MyAI extends Agent
         setWumpusProb(agentX, agentY); //when wumpus dies, all squares have Prob(wumpus) = 0
         lastAction = Action.FORWARD;
 
-        switch(currentDirection) {
-
-            case RIGHT:
-                switch(agentDir) {
-                    case RIGHT: // Facing R, go R: {F}
-                        actionSequence.addLast(Action.FORWARD);
-                        return Action.SHOOT;
-
-                    case DOWN: // Facing R, go D: {R -> F}
-                        actionSequence.addLast(Action.SHOOT);
-                        actionSequence.addLast(Action.FORWARD);
-                        return Action.TURN_RIGHT;
-
-                    case LEFT: // Facing R, go L: {L -> L -> F}
-                        actionSequence.addLast(Action.TURN_LEFT);
-                        actionSequence.addLast(Action.SHOOT);
-                        actionSequence.addLast(Action.FORWARD);
-                        return Action.TURN_LEFT;
-
-                    case UP: // Facing R, go U: {L -> F}
-                        actionSequence.addLast(Action.SHOOT);
-                        actionSequence.addLast(Action.FORWARD);
-                        return Action.TURN_LEFT;
-                }
-
-            case DOWN:
-                switch(agentDir) {
-                    case RIGHT: // Facing D, go R: {L -> F}
-                        actionSequence.addLast(Action.SHOOT);
-                        actionSequence.addLast(Action.FORWARD);
-                        return Action.TURN_LEFT;
-
-                    case DOWN: // Facing D, go D: {F}
-                        actionSequence.addLast(Action.FORWARD);
-                        return Action.SHOOT;
-
-                    case LEFT: // Facing D, go L: {R -> F}
-                        actionSequence.addLast(Action.SHOOT);
-                        actionSequence.addLast(Action.FORWARD);
-                        return Action.TURN_RIGHT;
-
-                    case UP: // Facing D, go U: {L -> L -> F}
-                        actionSequence.addLast(Action.TURN_LEFT);
-                        actionSequence.addLast(Action.SHOOT);
-                        actionSequence.addLast(Action.FORWARD);
-                        return Action.TURN_LEFT;
-                }
-
-            case LEFT:
-                switch(agentDir) {
-                    case RIGHT: // Facing L, go R: {L -> L -> F}
-                        actionSequence.addLast(Action.TURN_LEFT);
-                        actionSequence.addLast(Action.SHOOT);
-                        actionSequence.addLast(Action.FORWARD);
-                        return Action.TURN_LEFT;
-
-                    case DOWN: // Facing L, go D: {L -> F}
-                        actionSequence.addLast(Action.SHOOT);
-                        actionSequence.addLast(Action.FORWARD);
-                        return Action.TURN_LEFT;
-
-                    case LEFT: // Facing L, go L: {F}
-                        actionSequence.addLast(Action.FORWARD);
-                        return Action.SHOOT;
-
-                    case UP: // Facing L, go U: {R -> F}
-                        actionSequence.addLast(Action.SHOOT);
-                        actionSequence.addLast(Action.FORWARD);
-                        return Action.TURN_RIGHT;
-                }
+        return startSequence(KILL_SEQUENCE[currentDirection.ordinal()*4 + desiredDirection]);
+    }
 
-            case UP:
-                switch(agentDir) {
-                    case RIGHT: // Facing U, go R: {R -> F}
-                        actionSequence.addLast(Action.SHOOT);
-                        actionSequence.addLast(Action.FORWARD);
-                        return Action.TURN_RIGHT;
-
-                    case DOWN: // Facing U, go D: {L -> L -> F}
-                        actionSequence.addLast(Action.TURN_LEFT);
-                        actionSequence.addLast(Action.SHOOT);
-                        actionSequence.addLast(Action.FORWARD);
-                        return Action.TURN_LEFT;
-
-                    case LEFT: // Facing U, go L: {L -> F}
-                        actionSequence.addLast(Action.SHOOT);
-                        actionSequence.addLast(Action.FORWARD);
-                        return Action.TURN_LEFT;
-
-                    case UP: // Facing U, go U: {F}
-                        actionSequence.addLast(Action.FORWARD);
-                        return Action.SHOOT;
-                }
-        }
+    //queue all but the first action of a maneuver and return the first
+    private Agent.Action startSequence(Action[] sequence){
 
-        agentX = lastAgentX;
-        agentY = lastAgentY;
-        agentDir = lastAgentDir;
+        for(int i = 1; i < sequence.length; i++) actionSequence.add(sequence[i]);
 
-        lastAction = Action.SHOOT;
-        return Action.SHOOT;
+        return sequence[0];
     }
 
     //The following two methods are for debugging
@@ -1175,9 +2133,8 @@ public class MyAI extends Agent
 
         for(int i = DFSqueue.size()-1; i >= 0; i--){
 
-            Node node = new Node(0, 0);
-            node = DFSqueue.get(i);
-            System.out.print("(" + node.x + ", " + node.y + ") ");
+            int cell = DFSqueue.get(i);
+            System.out.print("(" + squares.x(cell) + ", " + squares.y(cell) + ") ");
         }
 
         System.out.print("\n");
@@ -1186,9 +2143,9 @@ public class MyAI extends Agent
     private void printTile(int x, int y) {
 
         System.out.print("(" + x + ", " + y + "):");
-        System.out.print(" visitedNum " + board[x][y].visitedNum);
-        System.out.print(", pitProb " + board[x][y].pitProb);
-        System.out.print(", wumpusProb " + board[x][y].wumpusProb);
+        System.out.print(" visitedNum " + visitedNumAt(x, y));
+        System.out.print(", pitProb " + pitProbAt(x, y));
+        System.out.print(", wumpusProb " + wumpusProbAt(x, y));
         System.out.print("\n");
     }
     // ======================================================================
@@ -0,0 +1,280 @@
+// ======================================================================
+// FILE:        ParallelRunner.java
+//
+// DESCRIPTION: This file contains the parallel runner class, which
+//              evaluates a set of worlds on a pool of worker threads.
+//              Every worker builds its own World and calls run(), and
+//              the per-world scores are handed back in the same order
+//              as the input, so the caller can merge them exactly like
+//              the sequential folder loop in Main does.
+//
+//              Worlds can come from a folder or from a lazy stream of
+//              in-memory worlds, e.g. a WorldGenerator. Tasks are handed
+//              to the pool in blocks, so a stream of a million worlds
+//              never sits in memory all at once, and every worker resets
+//              its own World for each in-memory world instead of
+//              building a new one.
+//
+// NOTES:       - Debug and manual mode are not supported here, since
+//                they need the console for themselves.
+//
+//              - If any world fails to load, the whole run fails, the
+//                same way the sequential loop gives up on the folder;
+//                unless the results go to a ResultsWriter, which records
+//                the failure and carries on.
+// ======================================================================
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+public class ParallelRunner
+{
+	// ===============================================================
+	// =						Declarations
+	// ===============================================================
+
+	private static final int BLOCK_SIZE = 256;	// Tasks in flight per worker thread
+
+	private final int		threads;		// Number of worker threads
+	private final boolean	randomAI;		// If true, uses the RandomAI instead of MyAI
+	private final boolean	verbose;		// If true, displays world file names before loading them
+	private final GameMetrics	metrics;	// Shared by every worker's World; null records nothing
+
+	private final ThreadLocal<World> worlds = new ThreadLocal<World>();	// Every worker replays its own World
+
+	// ===============================================================
+	// =						Constructors
+	// ===============================================================
+
+	public ParallelRunner ( boolean _randomAI, boolean _verbose )
+	{
+		this ( Runtime.getRuntime().availableProcessors(), _randomAI, _verbose, null );
+	}
+
+	public ParallelRunner ( boolean _randomAI, boolean _verbose, GameMetrics _metrics )
+	{
+		this ( Runtime.getRuntime().availableProcessors(), _randomAI, _verbose, _metrics );
+	}
+
+	public ParallelRunner ( int _threads, boolean _randomAI, boolean _verbose, GameMetrics _metrics )
+	{
+		threads  = Math.max ( 1, _threads );
+		randomAI = _randomAI;
+		verbose  = _verbose;
+		metrics  = _metrics;
+	}
+
+	// ===============================================================
+	// =					Runner Functions
+	// ===============================================================
+
+	// Returns the score of every world, indexed like listOfWorlds
+	public int[] run ( File[] listOfWorlds ) throws Exception
+	{
+		return scores ( fileTasks ( listOfWorlds, null ) );
+	}
+
+	// Returns the score of every world, in stream order
+	public int[] run ( Stream<WorldSpec> worlds ) throws Exception
+	{
+		return scores ( specTasks ( worlds, null ) );
+	}
+
+	// Records every world in 'results', in folder order, skipping the
+	// worlds it already has
+	public void run ( File[] listOfWorlds, ResultsWriter results ) throws Exception
+	{
+		record ( fileTasks ( listOfWorlds, results ), results );
+	}
+
+	// Records every world in 'results', in stream order, skipping the
+	// worlds it already has; a world is named by its stream index
+	public void run ( Stream<WorldSpec> worlds, ResultsWriter results ) throws Exception
+	{
+		record ( specTasks ( worlds, results ), results );
+	}
+
+	private Iterator<Callable<WorldResult>> fileTasks ( File[] listOfWorlds, ResultsWriter results )
+	{
+		List<Callable<WorldResult>> tasks = new ArrayList<Callable<WorldResult>>( listOfWorlds.length );
+		for ( File worldFile : listOfWorlds )
+			if ( results == null || !results.isRecorded ( worldFile.toString() ) )
+				tasks.add ( new FileTask ( worldFile ) );
+
+		return tasks.iterator();
+	}
+
+	private Iterator<Callable<WorldResult>> specTasks ( Stream<WorldSpec> worlds, final ResultsWriter results )
+	{
+		final Iterator<WorldSpec> specs = worlds.iterator();
+
+		return new Iterator<Callable<WorldResult>>()
+		{
+			private long		index = 0;		// Stream index of the next spec
+			private SpecTask	next  = null;	// The next task not yet handed out
+
+			public boolean hasNext ( )
+			{
+				while ( next == null && specs.hasNext() )
+				{
+					WorldSpec spec = specs.next();
+					String    name = Long.toString ( index++ );
+					if ( results == null || !results.isRecorded ( name ) )
+						next = new SpecTask ( name, spec );
+				}
+				return next != null;
+			}
+
+			public Callable<WorldResult> next ( )
+			{
+				if ( !hasNext() )
+					throw new NoSuchElementException();
+
+				SpecTask task = next;
+				next = null;
+				return task;
+			}
+		};
+	}
+
+	private int[] scores ( Iterator<Callable<WorldResult>> tasks ) throws Exception
+	{
+		int[] scores      = new int[BLOCK_SIZE];
+		int   numOfScores = 0;
+
+		ExecutorService pool = Executors.newFixedThreadPool ( threads );
+		try
+		{
+			List<Future<WorldResult>> block = new ArrayList<Future<WorldResult>>( threads * BLOCK_SIZE );
+
+			while ( tasks.hasNext() )
+			{
+				submit ( pool, tasks, block );
+
+				for ( Future<WorldResult> future : block )
+				{
+					WorldResult result = future.get();
+					if ( result.isError() )
+						throw result.getError();
+
+					if ( numOfScores == scores.length )
+						scores = Arrays.copyOf ( scores, scores.length * 2 );
+					scores[numOfScores++] = result.getScore();
+				}
+			}
+		}
+		finally
+		{
+			pool.shutdownNow();
+		}
+
+		return Arrays.copyOf ( scores, numOfScores );
+	}
+
+	private void record ( Iterator<Callable<WorldResult>> tasks, ResultsWriter results ) throws Exception
+	{
+		ExecutorService pool = Executors.newFixedThreadPool ( threads );
+		try
+		{
+			List<Future<WorldResult>> block = new ArrayList<Future<WorldResult>>( threads * BLOCK_SIZE );
+
+			while ( tasks.hasNext() )
+			{
+				submit ( pool, tasks, block );
+
+				for ( Future<WorldResult> future : block )
+					results.record ( future.get() );
+			}
+		}
+		finally
+		{
+			pool.shutdownNow();
+		}
+	}
+
+	// Hands the next block of tasks to the pool
+	private void submit ( ExecutorService pool, Iterator<Callable<WorldResult>> tasks, List<Future<WorldResult>> block )
+	{
+		block.clear();
+		while ( tasks.hasNext() && block.size() < threads * BLOCK_SIZE )
+			block.add ( pool.submit ( tasks.next() ) );
+	}
+
+	// A world file, evaluated on whichever worker picks it up
+	private class FileTask implements Callable<WorldResult>
+	{
+		private final File worldFile;
+
+		FileTask ( File _worldFile )
+		{
+			worldFile = _worldFile;
+		}
+
+		public WorldResult call ( )
+		{
+			if ( verbose )
+				System.out.println ( "Running world: " + worldFile );
+
+			long start = System.nanoTime();
+			try
+			{
+				World world = new World ( false, randomAI, false, worldFile );
+				world.setMetrics ( metrics );
+				world.run();
+				return new WorldResult ( worldFile.toString(), world, System.nanoTime() - start );
+			}
+			catch ( Exception e )
+			{
+				return new WorldResult ( worldFile.toString(), e, System.nanoTime() - start );
+			}
+		}
+	}
+
+	// An in-memory world, evaluated on whichever worker picks it up
+	private class SpecTask implements Callable<WorldResult>
+	{
+		private final String	name;
+		private final WorldSpec	spec;
+
+		SpecTask ( String _name, WorldSpec _spec )
+		{
+			name = _name;
+			spec = _spec;
+		}
+
+		public WorldResult call ( )
+		{
+			long start = System.nanoTime();
+			World world = worlds.get();
+			try
+			{
+				if ( world == null )
+				{
+					world = new World ( false, randomAI, false, spec );
+					world.setMetrics ( metrics );
+					worlds.set ( world );
+				}
+				else
+				{
+					world.reset ( spec );
+				}
+
+				world.run();
+				return new WorldResult ( name, world, System.nanoTime() - start );
+			}
+			catch ( Exception e )
+			{
+				return new WorldResult ( name, e, System.nanoTime() - start );
+			}
+		}
+	}
+}
@@ -0,0 +1,369 @@
+// ======================================================================
+// FILE:        PerceptTrie.java
+//
+// DESCRIPTION: This file contains the percept trie, which plays one
+//              agent on a whole set of worlds at once. An agent with the
+//              same seed makes the same moves in every world until its
+//              percepts differ, and as long as the percepts agree, so
+//              does everything else about the game: the agent's tile,
+//              direction, arrow, gold and score. So the worlds are kept
+//              together, the agent is asked once for all of them, and
+//              the set only splits where the percepts do: after moving
+//              onto a new tile, and after shooting. Each leaf of the
+//              tree is a group of worlds that ended the same way.
+//
+//              Worlds are numbered like ExactEvaluator's: every pit
+//              layout of the n tiles other than (0,0), times n places
+//              for the Wumpus, times n for the gold.
+//
+// NOTES:       - The rules are World.step's, applied to the shared game
+//                and to every world's pits, Wumpus and gold.
+//                'ExactEvaluator -s SEED -n' plays the same worlds one
+//                by one on World, to check the two agree.
+//
+//              - Where the worlds split, the first group goes on with the
+//                agent as it is and the others with forks of it. An
+//                agent that cannot be forked is started over for them
+//                instead, and given the percepts that led there again.
+// ======================================================================
+
+import java.util.Arrays;
+
+public class PerceptTrie
+{
+	// ===============================================================
+	// =						Declarations
+	// ===============================================================
+
+	static final int MAX_TILES = 21;	// A world is an int: the layout, then 5 bits each for the Wumpus and the gold
+
+	// Percepts, as bits of one int
+	private static final int STENCH  = 1;
+	private static final int BREEZE  = 2;
+	private static final int GLITTER = 4;
+	private static final int BUMP    = 8;
+	private static final int SCREAM  = 16;
+	private static final int TILE    = STENCH | BREEZE | GLITTER;	// The percepts of the tile itself
+
+	// The state every world of a group shares, as bits of one int
+	private static final int ARROW       = 1;
+	private static final int GOLD_LOOTED = 2;
+	private static final int WUMPUS_DEAD = 4;
+
+	// How a group of worlds splits, and the groups that die
+	private static final int MOVE            = 0;
+	private static final int SHOOT           = 1;
+	private static final int FELL_INTO_PIT   = GLITTER << 1;
+	private static final int EATEN_BY_WUMPUS = FELL_INTO_PIT + 1;
+	private static final int NUM_OF_GROUPS   = EATEN_BY_WUMPUS + 1;
+
+	private final int		colDimension;	// The number of columns of every world
+	private final int		rowDimension;	// The number of rows of every world
+	private final int		tiles;			// The tiles other than (0,0)
+	private Agent			agent;			// The agent of the group being played
+	private final long		seed;			// The agent's seed
+	private boolean			canFork;		// False once the agent turned out not to support fork()
+
+	private final int[]		neighbors;		// Per tile, bit i set if tile i+1 is next to it
+	private final int[]		lineOfFire;		// Per tile and direction, bit i set if an arrow from there passes tile i+1
+
+	private int[]					worlds;		// The worlds, grouped by percept history
+	private int[]					spare;		// Room to regroup them
+	private int[]					history;	// The percepts given to the agent so far on this branch
+	private ExactEvaluator.Tally	tally;		// What the leaves added up to
+
+	// ===============================================================
+	// =						Constructors
+	// ===============================================================
+
+	public PerceptTrie ( int _colDimension, int _rowDimension, Agent _agent, long _seed )
+	{
+		long numOfTiles = (long) _colDimension * _rowDimension - 1;
+		if ( _colDimension < 1 || _rowDimension < 1 || numOfTiles < 1 || numOfTiles > MAX_TILES )
+			throw new IllegalArgumentException ( "Invalid world dimensions: " + _colDimension + "x" + _rowDimension );
+
+		colDimension = _colDimension;
+		rowDimension = _rowDimension;
+		tiles        = (int) numOfTiles;
+		agent        = _agent;
+		seed         = _seed;
+		canFork      = true;
+		history      = new int[64];
+
+		neighbors  = new int[tiles+1];
+		lineOfFire = new int[( tiles+1 ) * 4];
+		for ( int r = 0; r < rowDimension; ++r )
+			for ( int c = 0; c < colDimension; ++c )
+			{
+				int tile = r * colDimension + c;
+				neighbors[tile] = bit ( c+1, r ) | bit ( c-1, r ) | bit ( c, r+1 ) | bit ( c, r-1 );
+
+				for ( int x = c; x < colDimension; ++x )
+					lineOfFire[tile*4]   |= bit ( x, r );
+				for ( int y = r; y >= 0; --y )
+					lineOfFire[tile*4+1] |= bit ( c, y );
+				for ( int x = c; x >= 0; --x )
+					lineOfFire[tile*4+2] |= bit ( x, r );
+				for ( int y = r; y < rowDimension; ++y )
+					lineOfFire[tile*4+3] |= bit ( c, y );
+			}
+	}
+
+	// ===============================================================
+	// =					Trie Functions
+	// ===============================================================
+
+	// Plays every world of the pit layouts [first, last)
+	public ExactEvaluator.Tally explore ( int first, int last )
+	{
+		long count = (long) ( last - first ) * tiles * tiles;
+		if ( first < 0 || last > ( 1 << tiles ) || count > Integer.MAX_VALUE - 8 )
+			throw new IllegalArgumentException ( "Invalid pit layouts: [" + first + ", " + last + ")" );
+
+		worlds = new int[(int) count];
+		spare  = new int[(int) count];
+		tally  = new ExactEvaluator.Tally();
+
+		int i = 0;
+		for ( int layout = first; layout < last; ++layout )
+			for ( int wumpus = 0; wumpus < tiles; ++wumpus )
+				for ( int gold = 0; gold < tiles; ++gold )
+					worlds[i++] = ( layout << 10 ) | ( wumpus << 5 ) | gold;
+
+		// The worlds already differ in what the agent perceives at (0,0)
+		agent.setSeed ( seed );
+		agent.reset();
+		split ( 0, 0, i, 0, 0, 0, ARROW, 0, MOVE, 0 );
+
+		ExactEvaluator.Tally result = tally;
+		worlds = null;
+		spare  = null;
+		tally  = null;
+		return result;
+	}
+
+	// Plays the worlds [lo, hi), which share everything up to 'step',
+	// until they split or end
+	private void play ( int step, int lo, int hi, int x, int y, int dir, int state, int score, int percept )
+	{
+		while ( score >= -1000 )
+		{
+			if ( step == history.length )
+				history = Arrays.copyOf ( history, step * 2 );
+			history[step] = percept;
+
+			Agent.Action action = getAction ( percept );
+			++step;
+			--score;
+			percept &= TILE;
+
+			switch ( action )
+			{
+				case TURN_LEFT:
+					dir = ( dir + 3 ) & 3;
+					break;
+
+				case TURN_RIGHT:
+					dir = ( dir + 1 ) & 3;
+					break;
+
+				case FORWARD:
+					if ( dir == 0 && x+1 < colDimension )
+						++x;
+					else if ( dir == 1 && y-1 >= 0 )
+						--y;
+					else if ( dir == 2 && x-1 >= 0 )
+						--x;
+					else if ( dir == 3 && y+1 < rowDimension )
+						++y;
+					else
+					{
+						percept |= BUMP;
+						break;
+					}
+					split ( step, lo, hi, x, y, dir, state, score, MOVE, 0 );
+					return;
+
+				case SHOOT:
+					if ( ( state & ARROW ) != 0 )
+					{
+						split ( step, lo, hi, x, y, dir, state & ~ARROW, score - 10, SHOOT, percept );
+						return;
+					}
+					break;
+
+				case GRAB:
+					if ( ( percept & GLITTER ) != 0 )
+					{
+						state   |= GOLD_LOOTED;
+						percept &= ~GLITTER;
+					}
+					break;
+
+				case CLIMB:
+					if ( x == 0 && y == 0 )
+					{
+						boolean gold = ( state & GOLD_LOOTED ) != 0;
+						leaf ( lo, hi, gold ? score + 1000 : score, gold ? World.Outcome.CLIMBED_WITH_GOLD : World.Outcome.CLIMBED_WITHOUT_GOLD );
+						return;
+					}
+					break;
+			}
+		}
+
+		leaf ( lo, hi, score, World.Outcome.OUT_OF_SCORE );
+	}
+
+	// Regroups the worlds [lo, hi) by what happened to them after a move
+	// onto (x, y) or a shot, and plays every group on. The agent is as
+	// it was after 'step' actions; every group but the first gets a fork
+	// of it, or replays it.
+	private void split ( int step, int lo, int hi, int x, int y, int dir, int state, int score, int how, int percept )
+	{
+		int   tile  = y * colDimension + x;
+		int[] count = new int[NUM_OF_GROUPS + 1];
+
+		for ( int i = lo; i < hi; ++i )
+			++count[group ( worlds[i], tile, dir, state, how ) + 1];
+		for ( int g = 1; g <= NUM_OF_GROUPS; ++g )
+			count[g] += count[g-1];
+
+		int[] start = count.clone();
+		for ( int i = lo; i < hi; ++i )
+			spare[lo + count[group ( worlds[i], tile, dir, state, how )]++] = worlds[i];
+		System.arraycopy ( spare, lo, worlds, lo, hi - lo );
+
+		// The forks have to be made before the first group changes the agent
+		Agent[] forks = null;
+		if ( canFork )
+		{
+			int live = 0;
+			for ( int g = 0; g < FELL_INTO_PIT; ++g )
+				if ( start[g] != start[g+1] )
+					++live;
+			forks = fork ( live - 1 );
+		}
+
+		Agent   base  = agent;
+		int     next  = 0;
+		boolean fresh = true;
+		for ( int g = 0; g < NUM_OF_GROUPS; ++g )
+		{
+			int first = lo + start[g];
+			int last  = lo + start[g+1];
+			if ( first == last )
+				continue;
+
+			if ( g == FELL_INTO_PIT )
+				leaf ( first, last, score - 1000, World.Outcome.FELL_INTO_PIT );
+			else if ( g == EATEN_BY_WUMPUS )
+				leaf ( first, last, score - 1000, World.Outcome.EATEN_BY_WUMPUS );
+			else
+			{
+				if ( fresh )
+					agent = base;
+				else if ( forks != null )
+					agent = forks[next++];
+				else
+					replay ( step );
+				fresh = false;
+
+				if ( how == MOVE )
+					play ( step, first, last, x, y, dir, state, score, g );
+				else if ( g == 1 )
+					play ( step, first, last, x, y, dir, state | WUMPUS_DEAD, score, percept | SCREAM );
+				else
+					play ( step, first, last, x, y, dir, state, score, percept );
+			}
+		}
+	}
+
+	// The group of a world after a move onto 'tile': its percepts there,
+	// or how it killed the agent. After a shot: 1 if it hit the Wumpus.
+	private int group ( int world, int tile, int dir, int state, int how )
+	{
+		int layout = world >>> 10;
+		int wumpus = ( world >>> 5 ) & 31;
+		int gold   = world & 31;
+
+		if ( how == SHOOT )
+			return ( lineOfFire[tile*4 + dir] >>> wumpus ) & 1;
+
+		boolean dead = ( state & WUMPUS_DEAD ) != 0;
+		if ( tile > 0 && ( ( layout >>> ( tile-1 ) ) & 1 ) != 0 )
+			return FELL_INTO_PIT;
+		if ( !dead && wumpus+1 == tile )
+			return EATEN_BY_WUMPUS;
+
+		int percept = 0;
+		if ( ( ( neighbors[tile] >>> wumpus ) & 1 ) != 0 || ( dead && wumpus+1 == tile ) )
+			percept |= STENCH;
+		if ( ( layout & neighbors[tile] ) != 0 )
+			percept |= BREEZE;
+		if ( ( state & GOLD_LOOTED ) == 0 && gold+1 == tile )
+			percept |= GLITTER;
+		return percept;
+	}
+
+	// Adds the worlds [lo, hi), which all ended with 'score'
+	private void leaf ( int lo, int hi, int score, World.Outcome outcome )
+	{
+		long weight = 0;
+		for ( int i = lo; i < hi; ++i )
+			weight += ExactEvaluator.weight ( tiles, worlds[i] >>> 10 );
+
+		tally.add ( score, outcome, weight, hi - lo );
+	}
+
+	// 'count' forks of the agent, or null if it cannot be forked
+	private Agent[] fork ( int count )
+	{
+		Agent[] forks = new Agent[Math.max ( 0, count )];
+		try
+		{
+			for ( int i = 0; i < forks.length; ++i )
+				forks[i] = agent.fork();
+		}
+		catch ( UnsupportedOperationException e )
+		{
+			canFork = false;
+			return null;
+		}
+		return forks;
+	}
+
+	// Starts the agent over and gives it the first 'step' percepts of
+	// this branch again
+	private void replay ( int step )
+	{
+		agent.setSeed ( seed );
+		agent.reset();
+		for ( int i = 0; i < step; ++i )
+			getAction ( history[i] );
+	}
+
+	private Agent.Action getAction ( int percept )
+	{
+		tally.addActions ( 1 );
+		return agent.getAction
+		(
+			( percept & STENCH ) != 0,
+			( percept & BREEZE ) != 0,
+			( percept & GLITTER ) != 0,
+			( percept & BUMP ) != 0,
+			( percept & SCREAM ) != 0
+		);
+	}
+
+	// ===============================================================
+	// =					Helper Functions
+	// ===============================================================
+
+	// The bit of tile (c, r), or 0 if it is (0,0) or off the board
+	private int bit ( int c, int r )
+	{
+		if ( c < 0 || r < 0 || c >= colDimension || r >= rowDimension || ( c == 0 && r == 0 ) )
+			return 0;
+		return 1 << ( r * colDimension + c - 1 );
+	}
+}
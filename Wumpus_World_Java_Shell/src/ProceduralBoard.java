@@ -0,0 +1,156 @@
+// ======================================================================
+// FILE:        ProceduralBoard.java
+//
+// DESCRIPTION: This file contains the procedural board class, a Board
+//              that never stores the cave. Whether a tile holds a pit
+//              is worked out from the world's seed and the tile's
+//              coordinates every time it is asked, and breezes and
+//              stenches from the tiles around it, so a board costs the
+//              same few fields at 4x4 as at 1000000x1000000.
+//
+// NOTES:       - The Wumpus and the gold come from the spec. Pits follow
+//                the generator's distribution: every tile other than
+//                (0,0) holds a pit with probability 0.2, independently
+//                of every other tile.
+//
+//              - All a game can change is whether the Wumpus is dead
+//                and whether the gold is gone.
+// ======================================================================
+
+public class ProceduralBoard implements Board
+{
+	// ===============================================================
+	// =						Declarations
+	// ===============================================================
+
+	private int		colDimension;	// The number of columns the game board has
+	private int		rowDimension;	// The number of rows the game board has
+	private long	seed;			// The seed the pits are worked out from
+	private int		wumpusC;		// The column of the Wumpus
+	private int		wumpusR;		// The row of the Wumpus
+	private int		goldC;			// The column of the gold
+	private int		goldR;			// The row of the gold
+	private boolean	wumpusDead;		// True once the Wumpus has been shot
+	private boolean	goldTaken;		// True once the gold has been grabbed
+
+	// ===============================================================
+	// =						Constructors
+	// ===============================================================
+
+	public ProceduralBoard ( WorldSpec spec )
+	{
+		load ( spec );
+	}
+
+	private ProceduralBoard ( ProceduralBoard other )
+	{
+		colDimension = other.colDimension;
+		rowDimension = other.rowDimension;
+		seed         = other.seed;
+		wumpusC      = other.wumpusC;
+		wumpusR      = other.wumpusR;
+		goldC        = other.goldC;
+		goldR        = other.goldR;
+		wumpusDead   = other.wumpusDead;
+		goldTaken    = other.goldTaken;
+	}
+
+	// ===============================================================
+	// =					Board Functions
+	// ===============================================================
+
+	public Board copy ( )
+	{
+		return new ProceduralBoard ( this );
+	}
+
+	public void load ( WorldSpec spec )
+	{
+		colDimension = spec.getColDimension();
+		rowDimension = spec.getRowDimension();
+		seed         = spec.getSeed();
+		wumpusC      = spec.getWumpusC();
+		wumpusR      = spec.getWumpusR();
+		goldC        = spec.getGoldC();
+		goldR        = spec.getGoldR();
+		wumpusDead   = false;
+		goldTaken    = false;
+	}
+
+	public void killWumpus ( int c, int r )
+	{
+		if ( isWumpus ( c, r ) )
+			wumpusDead = true;
+	}
+
+	public void removeGold ( int c, int r )
+	{
+		if ( isGold ( c, r ) )
+			goldTaken = true;
+	}
+
+	public boolean isInBounds ( int c, int r )
+	{
+		return ( c < colDimension && r < rowDimension && c >= 0 && r >= 0 );
+	}
+
+	// ===============================================================
+	// =					Getter Functions
+	// ===============================================================
+
+	public int getColDimension ( ) { return colDimension; }
+	public int getRowDimension ( ) { return rowDimension; }
+
+	public boolean isPit ( int c, int r )
+	{
+		return isInBounds ( c, r ) && isPit ( seed, c, r );
+	}
+
+	public boolean isWumpus ( int c, int r )
+	{
+		return !wumpusDead && c == wumpusC && r == wumpusR;
+	}
+
+	public boolean isGold ( int c, int r )
+	{
+		return !goldTaken && c == goldC && r == goldR;
+	}
+
+	public boolean isBreeze ( int c, int r )
+	{
+		return isInBounds ( c, r )
+			&& ( isPit ( c+1, r ) || isPit ( c-1, r ) || isPit ( c, r+1 ) || isPit ( c, r-1 ) );
+	}
+
+	// Like BitBoard, the tiles next to the Wumpus smell, and so does
+	// its own tile once it is dead
+	public boolean isStench ( int c, int r )
+	{
+		if ( !isInBounds ( c, r ) )
+			return false;
+
+		int distance = Math.abs ( c - wumpusC ) + Math.abs ( r - wumpusR );
+		return distance == 1 || ( distance == 0 && wumpusDead );
+	}
+
+	public boolean isDeadly ( int c, int r )
+	{
+		return isWumpus ( c, r ) || isPit ( c, r );
+	}
+
+	// ===============================================================
+	// =					Helper Functions
+	// ===============================================================
+
+	// Whether tile (c, r) of the world with the given seed holds a pit;
+	// the tile's coordinates pick its own point of the seed's SplitMix64
+	// sequence
+	public static boolean isPit ( long seed, int c, int r )
+	{
+		if ( c == 0 && r == 0 )
+			return false;
+
+		long tile = ( (long) r << 32 ) | ( c & 0xFFFFFFFFL );
+		return WorldGenerator.randomInt ( seed + tile * WorldGenerator.GOLDEN_GAMMA, 10 ) < 2;
+	}
+}
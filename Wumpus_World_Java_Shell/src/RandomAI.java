@@ -17,6 +17,36 @@ import java.util.Random;
 public class RandomAI extends Agent
 {
 	
+	public RandomAI ( )
+	{
+		this ( new Random().nextLong() );
+	}
+	
+	// The same seed always gives the same sequence of moves
+	public RandomAI ( long seed )
+	{
+		setSeed ( seed );
+	}
+	
+	// A fork makes the same moves from here on
+	private RandomAI ( RandomAI other )
+	{
+		seed = other.seed;
+	}
+	
+	// Restarts the sequence of moves as if constructed with 'seed'
+	@Override
+	public void setSeed ( long seed )
+	{
+		this.seed = ( seed ^ MULTIPLIER ) & MASK;
+	}
+	
+	@Override
+	public RandomAI fork ( )
+	{
+		return new RandomAI ( this );
+	}
+	
 	public Action getAction
 	(
 		boolean stench,
@@ -29,7 +59,27 @@ public class RandomAI extends Agent
 		if ( glitter )
 			return Action.GRAB;
 		
-		return actions [ rand.nextInt ( actions.length ) ];
+		return actions [ nextInt ( actions.length ) ];
+	}
+	
+	// java.util.Random's nextInt, on a state a fork can copy
+	private int nextInt ( int bound )
+	{
+		int r = next ( 31 );
+		int m = bound - 1;
+		
+		if ( ( bound & m ) == 0 )
+			return (int) ( ( bound * (long) r ) >> 31 );
+		
+		for ( int u = r; u - ( r = u % bound ) + m < 0; u = next ( 31 ) )
+			;
+		return r;
+	}
+	
+	private int next ( int bits )
+	{
+		seed = ( seed * MULTIPLIER + 0xBL ) & MASK;
+		return (int) ( seed >>> ( 48 - bits ) );
 	}
 	
 	private final Action[] actions =
@@ -42,6 +92,9 @@ public class RandomAI extends Agent
 		Action.CLIMB
 	};
 	
-	private Random rand = new Random();
+	private static final long MULTIPLIER = 0x5DEECE66DL;
+	private static final long MASK       = ( 1L << 48 ) - 1;
+	
+	private long seed;	// java.util.Random's 48-bit state
 	
-}
\ No newline at end of file
+}
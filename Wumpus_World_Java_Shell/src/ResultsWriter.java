@@ -0,0 +1,271 @@
+// ======================================================================
+// FILE:        ResultsWriter.java
+//
+// DESCRIPTION: This file contains the results writer class, which
+//              streams one tab-separated record per world to a results
+//              file as soon as the world is done:
+//
+//                  world  score  steps  outcome  micros  error
+//
+//              The records are collected in a buffer and written
+//              through a FileChannel whenever the buffer fills up or a
+//              second has passed, so a long run costs almost nothing
+//              extra and loses at most the last second if it crashes.
+//
+//              Opening an existing results file resumes it: the worlds
+//              it already records are reported by isRecorded and are
+//              counted in the running sums, so the run can skip them and
+//              still print the summary of the whole set.
+//
+//              The first line names the set of worlds, e.g. the world
+//              spec with its seed, and a file is only resumed by a run
+//              on the same set: records are keyed by the world's name
+//              alone, so any other set would be averaged in unnoticed.
+//
+// NOTES:       - A world that failed is recorded with outcome ERROR and
+//                left out of the sums.
+//
+//              - A half-written last line, from a crash in the middle of
+//                a write, is cut off when the file is resumed.
+// ======================================================================
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.Set;
+
+public class ResultsWriter
+{
+	// ===============================================================
+	// =						Declarations
+	// ===============================================================
+
+	public static final String HEADER = "world\tscore\tsteps\toutcome\tmicros\terror\n";
+	public static final String WORLDS = "# worlds: ";
+	public static final String ERROR  = "ERROR";
+
+	private static final int	BUFFER_SIZE    = 1 << 16;		// Bytes collected before a write
+	private static final long	FLUSH_INTERVAL = 1000000000L;	// Nanoseconds between writes
+
+	private final FileChannel	channel;		// The results file
+	private final ByteBuffer	buffer;			// Records not written yet
+	private final Set<String>	recorded;		// Worlds recorded by an earlier run
+	private final String		worldSet;		// The set of worlds the file is for
+	private long				lastFlush;		// When the buffer was last written
+
+	// Running sums over every recorded world that did not fail
+	private int		numOfScores;
+	private double	sumOfScores;
+	private double	sumOfScoresSquared;
+	private int		numOfErrors;
+
+	// ===============================================================
+	// =						Constructors
+	// ===============================================================
+
+	private ResultsWriter ( FileChannel _channel, String _worldSet )
+	{
+		channel   = _channel;
+		worldSet  = _worldSet;
+		buffer    = ByteBuffer.allocate ( BUFFER_SIZE );
+		recorded  = new HashSet<String>();
+		lastFlush = System.nanoTime();
+	}
+
+	// Opens a results file for the set of worlds 'worldSet', resuming it
+	// if it already has records; throws IOException if they are for
+	// another set
+	public static ResultsWriter open ( File resultsFile, String worldSet ) throws IOException
+	{
+		FileChannel channel = FileChannel.open
+		(
+			resultsFile.toPath(),
+			StandardOpenOption.CREATE,
+			StandardOpenOption.READ,
+			StandardOpenOption.WRITE
+		);
+
+		try
+		{
+			ResultsWriter results = new ResultsWriter ( channel, clean ( worldSet ) );
+			results.resume();
+			return results;
+		}
+		catch ( IOException e )
+		{
+			channel.close();
+			throw e;
+		}
+	}
+
+	// ===============================================================
+	// =					Writer Functions
+	// ===============================================================
+
+	// True if an earlier run already recorded the world
+	public boolean isRecorded ( String name )
+	{
+		return recorded.contains ( name );
+	}
+
+	public int getNumOfRecorded ( )
+	{
+		return recorded.size();
+	}
+
+	public void record ( WorldResult result ) throws IOException
+	{
+		StringBuilder line = new StringBuilder();
+		line.append ( clean ( result.getName() ) ).append ( '\t' );
+		line.append ( result.getScore() ).append ( '\t' );
+		line.append ( result.getSteps() ).append ( '\t' );
+		line.append ( result.isError() ? ERROR : result.getOutcome().name() ).append ( '\t' );
+		line.append ( result.getNanos() / 1000 ).append ( '\t' );
+		if ( result.isError() )
+			line.append ( clean ( String.valueOf ( result.getError() ) ) );
+		line.append ( '\n' );
+
+		write ( line.toString().getBytes ( StandardCharsets.UTF_8 ) );
+
+		if ( result.isError() )
+			++numOfErrors;
+		else
+			count ( result.getScore() );
+
+		if ( System.nanoTime() - lastFlush >= FLUSH_INTERVAL )
+			flush();
+	}
+
+	// Writes out every buffered record
+	public void flush ( ) throws IOException
+	{
+		buffer.flip();
+		while ( buffer.hasRemaining() )
+			channel.write ( buffer );
+		buffer.clear();
+		lastFlush = System.nanoTime();
+	}
+
+	public void close ( ) throws IOException
+	{
+		try
+		{
+			flush();
+			channel.force ( false );
+		}
+		finally
+		{
+			channel.close();
+		}
+	}
+
+	// ===============================================================
+	// =					Getter Functions
+	// ===============================================================
+
+	public int getNumOfScores ( )			{ return numOfScores; }
+	public double getSumOfScores ( )		{ return sumOfScores; }
+	public double getSumOfScoresSquared ( )	{ return sumOfScoresSquared; }
+	public int getNumOfErrors ( )			{ return numOfErrors; }
+
+	// ===============================================================
+	// =					Helper Functions
+	// ===============================================================
+
+	// Reads back the records of an earlier run and positions the
+	// channel after the last complete one
+	private void resume ( ) throws IOException
+	{
+		long size = channel.size();
+
+		String header = WORLDS + worldSet + "\n" + HEADER;
+
+		if ( size == 0 )
+		{
+			write ( header.getBytes ( StandardCharsets.UTF_8 ) );
+			return;
+		}
+
+		ByteBuffer contents = ByteBuffer.allocate ( (int) Math.min ( size, Integer.MAX_VALUE ) );
+		while ( contents.hasRemaining() && channel.read ( contents, contents.position() ) >= 0 )
+			;
+		contents.flip();
+
+		String text = StandardCharsets.UTF_8.decode ( contents ).toString();
+		if ( text.startsWith ( HEADER ) )
+			throw new IOException ( "The results file does not name its worlds, so it cannot be resumed" );
+		if ( !text.startsWith ( WORLDS ) || text.indexOf ( '\n' ) < 0 )
+			throw new IOException ( "Not a results file" );
+		if ( !text.startsWith ( header ) )
+			throw new IOException ( "The results file is for the worlds "
+				+ text.substring ( WORLDS.length(), text.indexOf ( '\n' ) ) + ", not " + worldSet );
+
+		// Everything after the last newline is a half-written record
+		int end = text.lastIndexOf ( '\n' ) + 1;
+
+		for ( String line : text.substring ( header.length(), end ).split ( "\n" ) )
+		{
+			if ( line.isEmpty() )
+				continue;
+
+			String[] fields = line.split ( "\t", -1 );
+			if ( fields.length != 6 )
+				throw new IOException ( "Malformed results record: " + line );
+
+			recorded.add ( fields[0] );
+			if ( fields[3].equals ( ERROR ) )
+				++numOfErrors;
+			else
+				count ( parseScore ( fields[1] ) );
+		}
+
+		long position = text.substring ( 0, end ).getBytes ( StandardCharsets.UTF_8 ).length;
+		channel.truncate ( position );
+		channel.position ( position );
+	}
+
+	private static int parseScore ( String score ) throws IOException
+	{
+		try
+		{
+			return Integer.parseInt ( score );
+		}
+		catch ( NumberFormatException e )
+		{
+			throw new IOException ( "Malformed score in results file: " + score );
+		}
+	}
+
+	private void count ( int score )
+	{
+		numOfScores += 1;
+		sumOfScores += score;
+		sumOfScoresSquared += score*score;
+	}
+
+	private void write ( byte[] bytes ) throws IOException
+	{
+		if ( bytes.length > buffer.remaining() )
+			flush();
+
+		if ( bytes.length > buffer.capacity() )
+		{
+			ByteBuffer big = ByteBuffer.wrap ( bytes );
+			while ( big.hasRemaining() )
+				channel.write ( big );
+			return;
+		}
+
+		buffer.put ( bytes );
+	}
+
+	// Keeps names and messages from breaking the record apart
+	private static String clean ( String field )
+	{
+		return field.replace ( '\t', ' ' ).replace ( '\n', ' ' ).replace ( '\r', ' ' );
+	}
+}
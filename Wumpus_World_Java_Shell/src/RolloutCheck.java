@@ -0,0 +1,114 @@
+// ======================================================================
+// FILE:        RolloutCheck.java
+//
+// DESCRIPTION: This file contains the rollout check, which makes sure
+//              the MonteCarloAI's simulator plays by World's rules. On
+//              every world of a generated set, it plays the same plans
+//              twice: once as a rollout on the simulator, and once as a
+//              MonteCarloAI.Player on World. The plans are the ones the
+//              agent weighs at the start of a game: go home, walk right
+//              or up into the unknown, or shoot in each direction, and
+//              then explore safely. Every pair of scores must match.
+//
+// NOTES:       - Syntax:
+//
+//                	RolloutCheck [Options]
+//
+//                  Options:
+//                      -n Followed by the number of worlds of every
+//                         size, 2000 by default.
+//                      -s Followed by the seed of the worlds.
+//
+//              - The worlds are of every size from 2x2 to 8x8, the
+//                largest the simulator can hold.
+//
+//              - The first few worlds that differ are printed, and the
+//                check exits with status 1 if there is any.
+// ======================================================================
+
+public class RolloutCheck
+{
+	// ===============================================================
+	// =						Declarations
+	// ===============================================================
+
+	private static final int	MIN_SIZE   = 2;
+	private static final int	MAX_SIZE   = 8;
+	private static final int	MAX_PRINTS = 10;	// Worlds that differ printed in full
+
+	// The plans: a tile walked into, or -1, and a direction shot in,
+	// or -1. Tiles are bits y * 8 + x, as in MonteCarloAI.
+	private static final int[]	PLAN_GOAL  = { -1, 1, 8, -1, -1, -1, -1 };
+	private static final int[]	PLAN_SHOOT = { -1, -1, -1, 0, 1, 2, 3 };
+
+	// ===============================================================
+	// =						Entry Point
+	// ===============================================================
+
+	public static void main ( String[] args ) throws Exception
+	{
+		long numOfWorlds = 2000;
+		long seed        = 1;
+
+		for ( int i = 0; i < args.length; ++i )
+		{
+			if ( args[i].equals ( "-n" ) && i+1 < args.length )
+			{
+				numOfWorlds = Long.parseLong ( args[++i] );
+			}
+			else if ( args[i].equals ( "-s" ) && i+1 < args.length )
+			{
+				seed = Long.parseLong ( args[++i] );
+			}
+			else
+			{
+				System.out.println ( "[ERROR] Invalid option: " + args[i] );
+				return;
+			}
+		}
+
+		WorldGenerator         generator = new WorldGenerator ( seed );
+		WorldSpec              spec      = new WorldSpec();
+		MonteCarloAI.Simulator simulator = new MonteCarloAI.Simulator();
+		MonteCarloAI.State     start     = new MonteCarloAI.State();
+		World                  world     = null;
+
+		long games     = 0;
+		long different = 0;
+
+		for ( int cols = MIN_SIZE; cols <= MAX_SIZE; ++cols )
+			for ( int rows = MIN_SIZE; rows <= MAX_SIZE; ++rows )
+				for ( long index = 0; index < numOfWorlds; ++index )
+				{
+					generator.generate ( index, cols, rows, spec );
+					simulator.load ( spec );
+
+					for ( int p = 0; p < PLAN_GOAL.length; ++p )
+					{
+						simulator.start ( start );
+						int expected = simulator.rollout ( start, PLAN_GOAL[p], PLAN_SHOOT[p] );
+
+						Agent player = new MonteCarloAI.Player ( start.board, PLAN_GOAL[p], PLAN_SHOOT[p] );
+						if ( world == null )
+							world = new World ( false, false, false, spec );
+						world.reset ( spec, player );
+						int score = world.run();
+
+						++games;
+						if ( score != expected )
+						{
+							if ( ++different <= MAX_PRINTS )
+								System.out.println ( "World " + index + " (" + cols + "x" + rows + "), plan " + p
+									+ ": the simulator scored " + expected + ", World " + score );
+						}
+					}
+				}
+
+		System.out.println ( "Games: " + games + " on " + numOfWorlds + " worlds of every size from "
+			+ MIN_SIZE + "x" + MIN_SIZE + " to " + MAX_SIZE + "x" + MAX_SIZE );
+		System.out.println ( "Scores that differ: " + different );
+
+		if ( different > 0 )
+			System.exit ( 1 );
+	}
+}
@@ -10,7 +10,6 @@
 // ======================================================================
 
 import java.util.Random;
-import java.io.IOException;
 import java.io.File;
 import java.util.Scanner;
 
@@ -20,22 +19,16 @@ public class World
 	// =						Declarations
 	// ===============================================================	
 	
-	// Tile Structure
-	private class Tile
-	{
-		boolean pit    = false;
-		boolean wumpus = false;
-		boolean gold   = false;
-		boolean breeze = false;
-		boolean stench = false;
-	}
-	
 	// Operation Variables
 	private boolean 	debug;			// If true, displays board info after every move
 	private boolean		manualAI;		// If true, alters the behavior of debug for flow purposes
+	private WorldObserver	observer;	// Told about every move; null runs the headless loop
+	private GameMetrics		metrics;	// Records every action and game; null records nothing
 	
 	// Agent Variables
 	private Agent 	agent;			// The agent
+	private Agent	actor;			// The agent, wrapped in an InstrumentedAgent if metrics are on
+	private long	agentSeed;		// The seed the agent got for this game
 	private int 	score;			// The agent's score
 	private boolean	goldLooted;		// True if gold was successfuly looted
 	private boolean	hasArrow;		// True if the agent can shoot
@@ -46,11 +39,24 @@ public class World
 	private int		agentY;			// The row where the agent is located ( y-coord = row-coord )
 
 	private Agent.Action	lastAction;	// The last action the agent made
+	private int				steps;		// The number of actions the agent made
+	private Outcome			outcome;	// How the game ended, or NONE while it runs
+	
+	// How a game can end
+	public enum Outcome
+	{
+		NONE,
+		CLIMBED_WITH_GOLD,
+		CLIMBED_WITHOUT_GOLD,
+		FELL_INTO_PIT,
+		EATEN_BY_WUMPUS,
+		OUT_OF_SCORE
+	}
 	
 	// Board Variables
 	private int			colDimension;	// The number of columns the game board has
 	private int			rowDimension;	// The number of rows the game board has
-	private Tile[][]	board;			// The game board
+	private Board		board;			// The game board: a BitBoard, or a ProceduralBoard for procedural specs
 	
 	// Random Variable
 	private Random rand;
@@ -61,37 +67,17 @@ public class World
 	
 	public World ( ) throws Exception
 	{
-		this ( false, false, false, null );
+		this ( false, false, false, (File) null );
 	}
 	
 	public World ( boolean _debug, boolean _randomAI, boolean _manualAI ) throws Exception
 	{
-		this ( _debug, _randomAI, _manualAI, null );
+		this ( _debug, _randomAI, _manualAI, (File) null );
 	}
 	
 	public World ( boolean _debug, boolean _randomAI, boolean _manualAI, File worldFile ) throws Exception
 	{
-		// Operation Flags
-		debug        = _debug;
-		manualAI     = _manualAI;
-		
-		// Agent Initialization
-		goldLooted   = false;
-		hasArrow     = true;
-		bump         = false;
-		scream       = false;
-		score        = 0;
-		agentDir     = 0;
-		agentX       = 0;
-		agentY       = 0;
-		lastAction   = Agent.Action.CLIMB;
-		
-		if ( _randomAI )
-			agent = new RandomAI();
-		else if ( _manualAI )
-			agent = new ManualAI();
-		else
-			agent = new MyAI();
+		this ( _debug, _randomAI, _manualAI, new Random ( ) );
 		
 		// Board Initialization
 		if ( worldFile != null )
@@ -101,176 +87,428 @@ public class World
 			if ( !scan.hasNextInt() )
 				throw new Exception();
 			
-			colDimension = scan.nextInt();
+			int c = scan.nextInt();
 			
 			if ( !scan.hasNextInt() )
 				throw new Exception();
 			
-			rowDimension = scan.nextInt();
-			
-			board = new Tile[colDimension][rowDimension];
-		
-			for ( int r = 0; r < rowDimension; ++r )
-				for ( int c = 0; c < colDimension; ++c )
-					board[c][r] = new Tile();
-
+			initBoard ( c, scan.nextInt() );
 			addFeatures ( scan );
 		}
 		else
 		{
-			rand = new Random ( );
-			colDimension = 4;
-			rowDimension = 4;
-			board = new Tile[colDimension][rowDimension];
-		
-			for ( int r = 0; r < rowDimension; ++r )
-				for ( int c = 0; c < colDimension; ++c )
-					board[c][r] = new Tile();
-
+			initBoard ( 4, 4 );
 			addFeatures ( );
 		}
 	}
 	
+	// Random world of the given size; the same seed always gives the same world
+	public World ( boolean _debug, boolean _randomAI, boolean _manualAI, int _colDimension, int _rowDimension, long seed ) throws Exception
+	{
+		this ( _debug, _randomAI, _manualAI, new Random ( seed ) );
+		
+		// The Wumpus and the gold need a tile other than (0,0)
+		if ( _colDimension < 1 || _rowDimension < 1 || (long) _colDimension * _rowDimension < 2 )
+			throw new Exception ( "Invalid world dimensions" );
+		
+		initBoard ( _colDimension, _rowDimension );
+		addFeatures ( );
+	}
+	
+	// World built from an in-memory layout, e.g. from a WorldGenerator
+	public World ( boolean _debug, boolean _randomAI, boolean _manualAI, WorldSpec spec ) throws Exception
+	{
+		this ( _debug, _randomAI, _manualAI, new Random ( spec.getSeed() ) );
+		
+		loadBoard ( spec );
+	}
+	
+	private World ( boolean _debug, boolean _randomAI, boolean _manualAI, Random _rand )
+	{
+		// Operation Flags
+		debug        = _debug;
+		manualAI     = _manualAI;
+		rand         = _rand;
+		
+		// Debug displays the world and pauses before every move, unless
+		// manualAI is on, because manualAI pauses for us
+		if ( debug || manualAI )
+			observer = new ConsoleObserver ( System.out, manualAI ? null : System.in, debug );
+		
+		// Agent Initialization
+		initAgent ( );
+		
+		if ( _randomAI )
+			agent = new RandomAI();
+		else if ( _manualAI )
+			agent = new ManualAI();
+		else
+			agent = new MyAI();
+		actor = agent;
+		
+		// The agent's random choices come from the world's seed too
+		agentSeed = rand.nextLong();
+		agent.setSeed ( agentSeed );
+	}
+	
+	// A copy of 'other' as it stands; see fork()
+	private World ( World other )
+	{
+		debug        = other.debug;
+		manualAI     = other.manualAI;
+		rand         = new Random ( );
+		
+		agent        = other.agent.fork();
+		actor        = agent;
+		agentSeed    = other.agentSeed;
+		score        = other.score;
+		goldLooted   = other.goldLooted;
+		hasArrow     = other.hasArrow;
+		bump         = other.bump;
+		scream       = other.scream;
+		agentDir     = other.agentDir;
+		agentX       = other.agentX;
+		agentY       = other.agentY;
+		lastAction   = other.lastAction;
+		steps        = other.steps;
+		outcome      = other.outcome;
+		
+		colDimension = other.colDimension;
+		rowDimension = other.rowDimension;
+		board        = other.board.copy();
+	}
+	
+	// ===============================================================
+	// =					Reset Functions
+	// ===============================================================
+	
+	// Starts a new game on the layout of 'spec', reusing the board and
+	// the agent. The game plays out exactly like a World constructed
+	// from 'spec', as long as the agent's reset() is complete.
+	public void reset ( WorldSpec spec )
+	{
+		rand.setSeed ( spec.getSeed() );
+		initAgent ( );
+		loadBoard ( spec );
+		
+		agentSeed = rand.nextLong();
+		agent.setSeed ( agentSeed );
+		agent.reset();
+	}
+	
+	// Starts a new game on the layout of 'spec' with a fresh agent
+	public void reset ( WorldSpec spec, Agent _agent )
+	{
+		rand.setSeed ( spec.getSeed() );
+		initAgent ( );
+		loadBoard ( spec );
+		agent = _agent;
+		actor = ( metrics == null ) ? agent : new InstrumentedAgent ( agent, metrics );
+		agentSeed = rand.nextLong();
+		agent.setSeed ( agentSeed );
+	}
+	
+	// Plays this game and the next ones with '_agent', a fresh agent,
+	// seeded like the one it replaces
+	public void setAgent ( Agent _agent )
+	{
+		agent = _agent;
+		actor = ( metrics == null ) ? agent : new InstrumentedAgent ( agent, metrics );
+		agent.setSeed ( agentSeed );
+	}
+	
+	// ===============================================================
+	// =					Fork Functions
+	// ===============================================================
+	
+	// A snapshot of the game in progress, agent included, that plays
+	// on by itself: moves made on either do not show on the other. The
+	// copy has no observer and records no metrics. Throws
+	// UnsupportedOperationException if the agent cannot be forked.
+	public World fork ( )
+	{
+		return new World ( this );
+	}
+	
+	private void initAgent ( )
+	{
+		goldLooted   = false;
+		hasArrow     = true;
+		bump         = false;
+		scream       = false;
+		score        = 0;
+		agentDir     = 0;
+		agentX       = 0;
+		agentY       = 0;
+		lastAction   = Agent.Action.CLIMB;
+		steps        = 0;
+		outcome      = Outcome.NONE;
+	}
+	
 	// ===============================================================
 	// =					Engine Function
 	// ===============================================================	
 	
 	public int run ( )
 	{
-		while ( score >= -1000 )
+		if ( metrics == null )
+			return ( observer == null ) ? runHeadless ( ) : runObserved ( );
+		
+		long start = System.nanoTime();
+		int  score = ( observer == null ) ? runHeadless ( ) : runObserved ( );
+		metrics.recordGame ( this, System.nanoTime() - start );
+		return score;
+	}
+	
+	// Lets the agent make one move; returns true if the game is over.
+	// run() carries on from wherever this leaves the game.
+	public boolean advance ( )
+	{
+		if ( isOverBeforeMove() )
+			return true;
+		
+		lastAction = actor.getAction
+		(
+			board.isStench ( agentX, agentY ),
+			board.isBreeze ( agentX, agentY ),
+			board.isGold ( agentX, agentY ),
+			bump,
+			scream
+		);
+		
+		return step ( lastAction );
+	}
+	
+	// Makes 'action' in the agent's place, without asking or telling the
+	// agent, e.g. to see where a move would lead on a fork; returns true
+	// if the game is over
+	public boolean apply ( Agent.Action action )
+	{
+		if ( isOverBeforeMove() )
+			return true;
+		
+		lastAction = action;
+		return step ( action );
+	}
+	
+	// The check run() makes before every move
+	private boolean isOverBeforeMove ( )
+	{
+		if ( outcome == Outcome.NONE && score < -1000 )
+			outcome = Outcome.OUT_OF_SCORE;
+		return outcome != Outcome.NONE;
+	}
+	
+	// The tournament loop: nothing but the agent and the rules
+	private int runHeadless ( )
+	{
+		while ( !isOverBeforeMove() )
 		{
-			if ( debug || manualAI )
-			{
-				printWorldInfo();
-				
-				if ( !manualAI )
-				{
-					// Pause the game, only if manualAI isn't on
-					// because manualAI pauses for us
-					System.out.println("Press ENTER to continue...");
-					try
-					{
-						System.in.read();
-					}
-					catch (IOException ioe)
-					{
-					}
-				}
-			}
 			// Get the move
-			lastAction = agent.getAction
+			lastAction = actor.getAction
 			(
-				board[agentX][agentY].stench,
-				board[agentX][agentY].breeze,
-				board[agentX][agentY].gold,
+				board.isStench ( agentX, agentY ),
+				board.isBreeze ( agentX, agentY ),
+				board.isGold ( agentX, agentY ),
 				bump,
 				scream
 			);
-
+			
+			// Make the move
+			step ( lastAction );
+		}
+		return score;
+	}
+	
+	// The same loop, telling the observer about every move. However the
+	// game ends, the observer hears of it after the loop, so no way out
+	// of the game can skip gameOver.
+	private int runObserved ( )
+	{
+		while ( !isOverBeforeMove() )
+		{
+			observer.beforeAction ( this );
+			
+			// Get the move
+			lastAction = actor.getAction
+			(
+				board.isStench ( agentX, agentY ),
+				board.isBreeze ( agentX, agentY ),
+				board.isGold ( agentX, agentY ),
+				bump,
+				scream
+			);
+			
 			// Make the move
-			--score;
-			bump   = false;
-			scream = false;
+			step ( lastAction );
+		}
+		observer.gameOver ( this );
+		return score;
+	}
+	
+	// Applies one action to the game; returns true if the game is over
+	private boolean step ( Agent.Action action )
+	{
+		--score;
+		++steps;
+		bump   = false;
+		scream = false;
+		
+		switch ( action )
+		{
+			case TURN_LEFT:
+				if (--agentDir < 0) agentDir = 3;
+				break;
+				
+			case TURN_RIGHT:
+				if (++agentDir > 3) agentDir = 0;
+				break;
+				
+			case FORWARD:
+				if ( agentDir == 0 && agentX+1 < colDimension )
+					++agentX;
+				else if ( agentDir == 1 && agentY-1 >= 0 )
+					--agentY;
+				else if ( agentDir == 2 && agentX-1 >= 0 )
+					--agentX;
+				else if ( agentDir == 3 && agentY+1 < rowDimension )
+					++agentY;
+				else
+					bump = true;
+				
+				if ( board.isDeadly ( agentX, agentY ) )
+				{
+					score -= 1000;
+					outcome = board.isPit ( agentX, agentY ) ? Outcome.FELL_INTO_PIT : Outcome.EATEN_BY_WUMPUS;
+					return true;
+				}
+				break;
 			
-			switch ( lastAction )
-			{
-				case TURN_LEFT:
-					if (--agentDir < 0) agentDir = 3;
-					break;
-					
-				case TURN_RIGHT:
-					if (++agentDir > 3) agentDir = 0;
-					break;
-					
-				case FORWARD:
-					if ( agentDir == 0 && agentX+1 < colDimension )
-						++agentX;
-					else if ( agentDir == 1 && agentY-1 >= 0 )
-						--agentY;
-					else if ( agentDir == 2 && agentX-1 >= 0 )
-						--agentX;
-					else if ( agentDir == 3 && agentY+1 < rowDimension )
-						++agentY;
-					else
-						bump = true;
-					
-					if ( board[agentX][agentY].pit || board[agentX][agentY].wumpus )
+			case SHOOT:
+				if ( hasArrow )
+				{
+					hasArrow = false;
+					score -= 10;
+					if ( agentDir == 0 )
 					{
-						score -= 1000;
-						if (debug) printWorldInfo();
-						return score;
+						for ( int x = agentX; x < colDimension; ++x )
+							if ( board.isWumpus ( x, agentY ) )
+							{
+								board.killWumpus ( x, agentY );
+								scream = true;
+							}
 					}
-					break;
-				
-				case SHOOT:
-					if ( hasArrow )
+					else if ( agentDir == 1 )
 					{
-						hasArrow = false;
-						score -= 10;
-						if ( agentDir == 0 )
-						{
-							for ( int x = agentX; x < colDimension; ++x )
-								if ( board[x][agentY].wumpus )
-								{
-									board[x][agentY].wumpus = false;
-									board[x][agentY].stench = true;
-									scream = true;
-								}
-						}
-						else if ( agentDir == 1 )
-						{
-							for ( int y = agentY; y >= 0; --y )
-								if ( board[agentX][y].wumpus )
-								{
-									board[agentX][y].wumpus = false;
-									board[agentX][y].stench = true;
-									scream = true;
-								}
-						}
-						else if ( agentDir == 2 )
-						{
-							for ( int x = agentX; x >= 0; --x )
-								if ( board[x][agentY].wumpus )
-								{
-									board[x][agentY].wumpus = false;
-									board[x][agentY].stench = true;
-									scream = true;
-								}
-						}
-						else if ( agentDir == 3 )
-						{
-							for ( int y = agentY; y < rowDimension; ++y )
-								if ( board[agentX][y].wumpus )
-								{
-									board[agentX][y].wumpus = false;
-									board[agentX][y].stench = true;
-									scream = true;
-								}
-						}
+						for ( int y = agentY; y >= 0; --y )
+							if ( board.isWumpus ( agentX, y ) )
+							{
+								board.killWumpus ( agentX, y );
+								scream = true;
+							}
 					}
-					break;
-					
-				case GRAB:
-					if ( board[agentX][agentY].gold )
+					else if ( agentDir == 2 )
 					{
-						board[agentX][agentY].gold = false;
-						goldLooted = true;
+						for ( int x = agentX; x >= 0; --x )
+							if ( board.isWumpus ( x, agentY ) )
+							{
+								board.killWumpus ( x, agentY );
+								scream = true;
+							}
 					}
-					break;
-					
-				case CLIMB:
-					if ( agentX == 0 && agentY == 0 )
+					else if ( agentDir == 3 )
 					{
-						if ( goldLooted )
-							score += 1000;
-						if (debug) printWorldInfo();
-						return score;
+						for ( int y = agentY; y < rowDimension; ++y )
+							if ( board.isWumpus ( agentX, y ) )
+							{
+								board.killWumpus ( agentX, y );
+								scream = true;
+							}
 					}
-					break;
-			}
+				}
+				break;
+				
+			case GRAB:
+				if ( board.isGold ( agentX, agentY ) )
+				{
+					board.removeGold ( agentX, agentY );
+					goldLooted = true;
+				}
+				break;
+				
+			case CLIMB:
+				if ( agentX == 0 && agentY == 0 )
+				{
+					if ( goldLooted )
+						score += 1000;
+					outcome = goldLooted ? Outcome.CLIMBED_WITH_GOLD : Outcome.CLIMBED_WITHOUT_GOLD;
+					return true;
+				}
+				break;
 		}
-		return score;
+		return false;
 	}
+	
+	// ===============================================================
+	// =					Getter Functions
+	// ===============================================================
+	
+	public int getColDimension ( ) { return colDimension; }
+	public int getRowDimension ( ) { return rowDimension; }
+	public int getScore        ( ) { return score; }
+	public int getAgentX       ( ) { return agentX; }
+	public int getAgentY       ( ) { return agentY; }
+	public int getAgentDir     ( ) { return agentDir; }
+	public boolean hasArrow    ( ) { return hasArrow; }
+	public boolean isGoldLooted ( ) { return goldLooted; }
+	public Agent getAgent      ( ) { return agent; }
+	public Agent.Action getLastAction ( ) { return lastAction; }
+	public int getSteps        ( ) { return steps; }
+	public Outcome getOutcome  ( ) { return outcome; }
+	public boolean isOver      ( ) { return outcome != Outcome.NONE; }
+	
+	// The percepts on the agent's tile
+	public boolean getStench   ( ) { return board.isStench ( agentX, agentY ); }
+	public boolean getBreeze   ( ) { return board.isBreeze ( agentX, agentY ); }
+	public boolean getGlitter  ( ) { return board.isGold ( agentX, agentY ); }
+	public boolean getBump     ( ) { return bump; }
+	public boolean getScream   ( ) { return scream; }
+	
+	// The contents of any tile
+	public boolean isPit    ( int c, int r ) { return board.isPit ( c, r ); }
+	public boolean isWumpus ( int c, int r ) { return board.isWumpus ( c, r ); }
+	public boolean isGold   ( int c, int r ) { return board.isGold ( c, r ); }
+	public boolean isBreeze ( int c, int r ) { return board.isBreeze ( c, r ); }
+	public boolean isStench ( int c, int r ) { return board.isStench ( c, r ); }
+	
+	// ===============================================================
+	// =				Observer and Metrics Functions
+	// ===============================================================
+	
+	// Attaches an observer, or detaches it with null
+	public void setObserver ( WorldObserver _observer )
+	{
+		observer = _observer;
+	}
+	
+	public WorldObserver getObserver ( )
+	{
+		return observer;
+	}
+	
+	// Starts recording every action and game in 'metrics', or stops
+	// with null
+	public void setMetrics ( GameMetrics _metrics )
+	{
+		metrics = _metrics;
+		actor   = ( metrics == null ) ? agent : new InstrumentedAgent ( agent, metrics );
+	}
+	
+	public GameMetrics getMetrics ( )
+	{
+		return metrics;
+	}
+	
 	// ===============================================================
 	// =				World Generation Functions
 	// ===============================================================
@@ -308,6 +546,34 @@ public class World
 		addGold ( gc, gr );
 	}
 	
+	private void initBoard ( int _colDimension, int _rowDimension )
+	{
+		colDimension = _colDimension;
+		rowDimension = _rowDimension;
+		board = new BitBoard ( colDimension, rowDimension );
+	}
+	
+	// Loads 'spec', keeping the board if it is of the right kind
+	private void loadBoard ( WorldSpec spec )
+	{
+		colDimension = spec.getColDimension();
+		rowDimension = spec.getRowDimension();
+		
+		if ( spec.isProcedural() )
+		{
+			if ( board instanceof ProceduralBoard )
+				board.load ( spec );
+			else
+				board = new ProceduralBoard ( spec );
+		}
+		else
+		{
+			if ( !( board instanceof BitBoard ) )
+				board = new BitBoard ( colDimension, rowDimension );
+			board.load ( spec );
+		}
+	}
+	
 	private void addFeatures ( Scanner scan ) throws Exception
 	{
 		int c, r;
@@ -366,178 +632,20 @@ public class World
 		scan.close();
 	}
 	
+	// Random and file worlds are always built on a BitBoard
 	private void addPit ( int c, int r )
 	{
-		if ( isInBounds(c, r) )
-		{
-			board[c][r].pit = true;
-			addBreeze ( c+1, r );
-			addBreeze ( c-1, r );
-			addBreeze ( c, r+1 );
-			addBreeze ( c, r-1 );
-		}
+		( (BitBoard) board ).addPit ( c, r );
 	}
 	
 	private void addWumpus ( int c, int r )
 	{
-		if ( isInBounds(c, r) )
-		{
-			board[c][r].wumpus = true;
-			addStench ( c+1, r );
-			addStench ( c-1, r );
-			addStench ( c, r+1 );
-			addStench ( c, r-1 );
-		}
+		( (BitBoard) board ).addWumpus ( c, r );
 	}
 	
 	private void addGold ( int c, int r )
 	{
-		if ( isInBounds(c, r) )
-			board[c][r].gold = true;
-	}
-	
-	private void addStench ( int c, int r )
-	{
-		if ( isInBounds(c, r) )
-			board[c][r].stench = true;
-	}
-	
-	private void addBreeze ( int c, int r )
-	{
-		if ( isInBounds(c, r) )
-			board[c][r].breeze = true;
-	}
-	
-	private boolean isInBounds ( int c, int r )
-	{
-		return ( c < colDimension && r < rowDimension && c >= 0  && r >= 0);
-	}
-	
-	// ===============================================================
-	// =				World Printing Functions
-	// ===============================================================
-	
-	private void printWorldInfo ( )
-	{
-		printBoardInfo();
-		printAgentInfo();
-	}
-	
-	private void printBoardInfo ( )
-	{
-		for ( int r = rowDimension-1; r >= 0; --r )
-		{
-			for ( int c = 0; c < colDimension; ++c )
-				printTileInfo ( c, r );
-			System.out.println("");
-			System.out.println("");
-		}
-	}
-
-	private void printTileInfo ( int c, int r )
-	{
-		StringBuilder tileString = new StringBuilder();
-		
-		if (board[c][r].pit)    tileString.append("P");
-		if (board[c][r].wumpus) tileString.append("W");
-		if (board[c][r].gold)   tileString.append("G");
-		if (board[c][r].breeze) tileString.append("B");
-		if (board[c][r].stench) tileString.append("S");
-		
-		if ( agentX == c && agentY == r )
-			tileString.append("@");
-		
-		tileString.append(".");
-		
-		System.out.printf("%8s", tileString.toString());
-	}
-	
-	private void printAgentInfo ( )
-	{
-		System.out.println("Score: "   + score);
-		System.out.println("AgentX: "  + agentX);
-		System.out.println("AgentY: "  + agentY);
-		printDirectionInfo();
-		printActionInfo();
-		printPerceptInfo();
-	}
-	
-	private void printDirectionInfo ( )
-	{
-		switch (agentDir)
-		{
-			case 0:
-				System.out.println("AgentDir: Right");
-				break;
-				
-			case 1:
-				System.out.println("AgentDir: Down");
-				break;
-				
-			case 2:
-				System.out.println("AgentDir: Left");
-				break;
-				
-			case 3:
-				System.out.println("AgentDir: Up");
-				break;
-				
-			default:
-				System.out.println("AgentDir: Invalid");
-		}
-	}
-	
-	private void printActionInfo ( )
-	{
-		switch (lastAction)
-		{
-			case TURN_LEFT:
-				System.out.println("Last Action: Turned Left");
-				break;
-				
-			case TURN_RIGHT:
-				System.out.println("Last Action: Turned Right");
-				break;
-				
-			case FORWARD:
-				System.out.println("Last Action: Moved Forward");
-				break;
-				
-			case SHOOT:
-				System.out.println("Last Action: Shot the arrow");
-				break;
-				
-			case GRAB:
-				System.out.println("Last Action: Grabbed");
-				break;
-				
-			case CLIMB:
-				System.out.println("Last Action: Climbed");
-				break;
-				
-			default:
-				System.out.println("Last Action: Invalid");
-		}
-	}
-	
-	private void printPerceptInfo ( )
-	{
-		StringBuilder perceptString = new StringBuilder("Percepts: ");
-		
-		if (board[agentX][agentY].stench) perceptString.append("Stench, ");
-		if (board[agentX][agentY].breeze) perceptString.append("Breeze, ");
-		if (board[agentX][agentY].gold)   perceptString.append("Glitter, ");
-		if (bump)                         perceptString.append("Bump, ");
-		if (scream)                       perceptString.append("Scream");
-		
-		if ( perceptString.charAt(perceptString.length()-1) == ' '
-				&& perceptString.charAt(perceptString.length()-2) == ',' )
-		{
-			perceptString.deleteCharAt(perceptString.length()-1);
-			perceptString.deleteCharAt(perceptString.length()-1);
-		}
-		
-		System.out.println(perceptString.toString());
+		( (BitBoard) board ).addGold ( c, r );
 	}
 	
 	// ===============================================================
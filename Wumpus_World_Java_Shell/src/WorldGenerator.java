@@ -0,0 +1,201 @@
+// ======================================================================
+// FILE:        WorldGenerator.java
+//
+// DESCRIPTION: This file contains the world generator class, which
+//              replaces the world_generator.py file dumps with worlds
+//              generated in memory. The distribution is the same as
+//              genWorld: every tile other than (0,0) holds a pit with
+//              probability 0.2, and the Wumpus and the gold are placed
+//              uniformly on the tiles other than (0,0).
+//
+// NOTES:       - World number i of a generator only depends on the
+//                generator seed and i, so streams are reproducible and
+//                can be consumed in any order or in parallel.
+//
+//              - world_generator.py writes pit coordinates as
+//                (row, col) while World reads them as (col, row), so
+//                non-square world files lose the pits that end up out
+//                of bounds. This generator places them as intended.
+//
+//              - Procedural worlds place no pits: ProceduralBoard works
+//                out every tile's pit from the world seed when asked, so
+//                they cost the same to generate at any size.
+// ======================================================================
+
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+public class WorldGenerator
+{
+	// ===============================================================
+	// =						Declarations
+	// ===============================================================
+
+	static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+	private final long seed;		// The seed every world is derived from
+
+	// ===============================================================
+	// =						Constructors
+	// ===============================================================
+
+	public WorldGenerator ( long _seed )
+	{
+		seed = _seed;
+	}
+
+	// ===============================================================
+	// =					Generation Functions
+	// ===============================================================
+
+	// Returns world number 'index'
+	public WorldSpec generate ( long index, int colDimension, int rowDimension )
+	{
+		WorldSpec spec = new WorldSpec ( colDimension, rowDimension );
+		generate ( index, colDimension, rowDimension, spec );
+		return spec;
+	}
+
+	// Fills 'spec' with world number 'index', without allocating
+	public void generate ( long index, int colDimension, int rowDimension, WorldSpec spec )
+	{
+		checkDimensions ( colDimension, rowDimension, true );
+
+		long worldSeed = mix ( seed + index * GOLDEN_GAMMA );
+		long state     = worldSeed;
+
+		spec.reset ( colDimension, rowDimension );
+		spec.setSeed ( worldSeed );
+
+		// Generate pits
+		for ( int r = 0; r < rowDimension; ++r )
+			for ( int c = 0; c < colDimension; ++c )
+			{
+				state += GOLDEN_GAMMA;
+				if ( (c != 0 || r != 0) && randomInt ( state, 10 ) < 2 )
+					spec.addPit ( c, r );
+			}
+
+		placeWumpusAndGold ( state, colDimension, rowDimension, spec );
+	}
+
+	// Fills 'spec' with procedural world number 'index', whose pits are
+	// left to ProceduralBoard
+	public void generateProcedural ( long index, int colDimension, int rowDimension, WorldSpec spec )
+	{
+		checkDimensions ( colDimension, rowDimension, false );
+
+		long worldSeed = mix ( seed + index * GOLDEN_GAMMA );
+
+		spec.resetProcedural ( colDimension, rowDimension );
+		spec.setSeed ( worldSeed );
+
+		// Tile (c, r) draws its pit from step (r << 32 | c) of the
+		// sequence, which is below 2^63; starting halfway round keeps
+		// the Wumpus and the gold off every tile's step
+		placeWumpusAndGold ( worldSeed ^ Long.MIN_VALUE, colDimension, rowDimension, spec );
+	}
+
+	// A lazy stream of 'count' worlds of the same size
+	public Stream<WorldSpec> worlds ( long count, int colDimension, int rowDimension )
+	{
+		return worlds ( 0, count, colDimension, rowDimension );
+	}
+
+	// The same mix of sizes as 'make tournamentSet': 2500 4x4 worlds and
+	// 500 worlds of every other size from 4x4 to 7x7
+	public Stream<WorldSpec> tournamentSet ( )
+	{
+		Stream<WorldSpec> worlds = Stream.empty();
+		long first = 0;
+
+		for ( int c = 4; c <= 7; ++c )
+			for ( int r = 4; r <= 7; ++r )
+			{
+				long count = ( c == 4 && r == 4 ) ? 2500 : 500;
+				worlds = Stream.concat ( worlds, worlds ( first, count, c, r ) );
+				first += count;
+			}
+
+		return worlds;
+	}
+
+	// A lazy stream of 'count' procedural worlds of the same size
+	public Stream<WorldSpec> proceduralWorlds ( long count, final int colDimension, final int rowDimension )
+	{
+		checkDimensions ( colDimension, rowDimension, false );
+		return LongStream.range ( 0, count )
+				.mapToObj ( index ->
+				{
+					WorldSpec spec = new WorldSpec ( 1, 1 );
+					generateProcedural ( index, colDimension, rowDimension, spec );
+					return spec;
+				} );
+	}
+
+	private Stream<WorldSpec> worlds ( long first, long count, final int colDimension, final int rowDimension )
+	{
+		checkDimensions ( colDimension, rowDimension, true );
+		return LongStream.range ( first, first + count )
+				.mapToObj ( index -> generate ( index, colDimension, rowDimension ) );
+	}
+
+	// ===============================================================
+	// =					Helper Functions
+	// ===============================================================
+
+	// The Wumpus and the gold need a tile other than (0,0), and a dense
+	// world's pits must fit in a WorldSpec's bitmask
+	private static void checkDimensions ( int colDimension, int rowDimension, boolean dense )
+	{
+		if ( colDimension < 1 || rowDimension < 1 || (long) colDimension * rowDimension < 2 )
+			throw new IllegalArgumentException ( "Invalid world dimensions: " + colDimension + "x" + rowDimension );
+		if ( dense && (long) colDimension * rowDimension > WorldSpec.MAX_TILES )
+			throw new IllegalArgumentException ( "Too many tiles for a dense world: " + colDimension + "x" + rowDimension
+				+ " (at most " + WorldSpec.MAX_TILES + "); procedural worlds have no such limit" );
+	}
+
+	// Places the Wumpus and the gold on tiles other than (0,0), drawing
+	// from the generator state 'state'
+	private static void placeWumpusAndGold ( long state, int colDimension, int rowDimension, WorldSpec spec )
+	{
+		// Generate wumpus
+		int wc, wr;
+		do
+		{
+			state += GOLDEN_GAMMA;
+			wc = randomInt ( state, colDimension );
+			state += GOLDEN_GAMMA;
+			wr = randomInt ( state, rowDimension );
+		}
+		while ( wc == 0 && wr == 0 );
+
+		spec.setWumpus ( wc, wr );
+
+		// Generate gold
+		int gc, gr;
+		do
+		{
+			state += GOLDEN_GAMMA;
+			gc = randomInt ( state, colDimension );
+			state += GOLDEN_GAMMA;
+			gr = randomInt ( state, rowDimension );
+		}
+		while ( gc == 0 && gr == 0 );
+
+		spec.setGold ( gc, gr );
+	}
+
+	// SplitMix64 finalizer
+	static long mix ( long z )
+	{
+		z = ( z ^ ( z >>> 30 ) ) * 0xBF58476D1CE4E5B9L;
+		z = ( z ^ ( z >>> 27 ) ) * 0x94D049BB133111EBL;
+		return z ^ ( z >>> 31 );
+	}
+
+	static int randomInt ( long state, int limit )
+	{
+		return (int) ( ( ( mix ( state ) >>> 32 ) * limit ) >>> 32 );
+	}
+}
@@ -0,0 +1,23 @@
+// ======================================================================
+// FILE:        WorldObserver.java
+//
+// DESCRIPTION: This file contains the world observer interface. An
+//              observer attached to a World is told about every move of
+//              the game, which is how rendering, tracing and pausing
+//              plug into the engine. A World without an observer runs
+//              the headless loop and pays nothing for them.
+//
+// NOTES:       - The World passed in is the live game; observers may read
+//                it through its getters but must not keep it around
+//                after gameOver.
+// ======================================================================
+
+public interface WorldObserver
+{
+	// Called before the agent is asked for its next move
+	void beforeAction ( World world );
+	
+	// Called once when the game ends, whether the agent climbed out,
+	// died, or ran out of score
+	void gameOver ( World world );
+}
@@ -0,0 +1,407 @@
+// ======================================================================
+// FILE:        WorldPack.java
+//
+// DESCRIPTION: This file contains the world pack class, which stores
+//              many worlds in one compact binary file and reads them
+//              back through a memory-mapped buffer. A pack replaces a
+//              folder of world files, so a tournament run does not have
+//              to open and tokenize one file per world.
+//
+//              It also converts between packs and the tab-separated
+//              world files that World and world_generator.py use.
+//
+// NOTES:       - Layout (big-endian):
+//
+//                  header: int magic 'WPAK', int version, int count
+//                  world:  short colDimension, short rowDimension,
+//                          short wumpusC, short wumpusR,
+//                          short goldC, short goldR,
+//                          long[ (colDimension*rowDimension+63)/64 ] pits
+//
+//                Pit bits are indexed like WorldSpec: r * colDimension + c.
+//
+//              - Syntax:
+//
+//                	WorldPack pack   [WorldFolder] [PackFile]
+//                	WorldPack unpack [PackFile] [WorldFolder]
+//
+//              - A pack is mapped in one piece, so it must stay below
+//                2 GB (about 100 million 7x7 worlds).
+// ======================================================================
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Scanner;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+public class WorldPack
+{
+	// ===============================================================
+	// =						Declarations
+	// ===============================================================
+
+	private static final int MAGIC       = 0x5750414B;	// 'WPAK'
+	private static final int VERSION     = 1;
+	private static final int HEADER_SIZE = 12;
+
+	private final MappedByteBuffer	buffer;		// The mapped pack file
+	private final int				count;		// The number of worlds in the pack
+
+	// ===============================================================
+	// =						Constructors
+	// ===============================================================
+
+	private WorldPack ( MappedByteBuffer _buffer ) throws IOException
+	{
+		buffer = _buffer;
+
+		if ( buffer.limit() < HEADER_SIZE || buffer.getInt ( 0 ) != MAGIC )
+			throw new IOException ( "Not a world pack" );
+		if ( buffer.getInt ( 4 ) != VERSION )
+			throw new IOException ( "Unsupported world pack version: " + buffer.getInt ( 4 ) );
+
+		count = buffer.getInt ( 8 );
+	}
+
+	public static WorldPack open ( File packFile ) throws IOException
+	{
+		RandomAccessFile file = new RandomAccessFile ( packFile, "r" );
+		try
+		{
+			FileChannel channel = file.getChannel();
+			return new WorldPack ( channel.map ( FileChannel.MapMode.READ_ONLY, 0, channel.size() ) );
+		}
+		finally
+		{
+			// The mapping stays valid after the channel is closed
+			file.close();
+		}
+	}
+
+	// True if the file starts with the world pack magic number
+	public static boolean isPack ( File file )
+	{
+		if ( !file.isFile() )
+			return false;
+
+		try
+		{
+			RandomAccessFile in = new RandomAccessFile ( file, "r" );
+			try
+			{
+				return in.length() >= HEADER_SIZE && in.readInt() == MAGIC;
+			}
+			finally
+			{
+				in.close();
+			}
+		}
+		catch ( IOException e )
+		{
+			return false;
+		}
+	}
+
+	// ===============================================================
+	// =					Reader Functions
+	// ===============================================================
+
+	public int size ( )
+	{
+		return count;
+	}
+
+	// A cursor over the pack; every cursor reads independently
+	public Cursor cursor ( )
+	{
+		return new Cursor();
+	}
+
+	// A lazy stream of the worlds in the pack, in pack order
+	public Stream<WorldSpec> worlds ( )
+	{
+		final Cursor cursor = cursor();
+
+		Iterator<WorldSpec> specs = new Iterator<WorldSpec>()
+		{
+			public boolean hasNext ( )
+			{
+				return cursor.hasNext();
+			}
+
+			public WorldSpec next ( )
+			{
+				if ( !cursor.hasNext() )
+					throw new NoSuchElementException();
+
+				WorldSpec spec = new WorldSpec();
+				cursor.next ( spec );
+				return spec;
+			}
+		};
+
+		return StreamSupport.stream ( Spliterators.spliterator ( specs, count, Spliterator.ORDERED | Spliterator.NONNULL ), false );
+	}
+
+	public class Cursor
+	{
+		private int position = HEADER_SIZE;		// Byte offset of the next world
+		private int index    = 0;				// Index of the next world
+
+		public boolean hasNext ( )
+		{
+			return index < count;
+		}
+
+		// Fills 'spec' with the next world, without allocating
+		public void next ( WorldSpec spec )
+		{
+			int colDimension = buffer.getShort ( position );
+			int rowDimension = buffer.getShort ( position + 2 );
+
+			spec.reset ( colDimension, rowDimension );
+			spec.setWumpus ( buffer.getShort ( position + 4 ), buffer.getShort ( position + 6 ) );
+			spec.setGold ( buffer.getShort ( position + 8 ), buffer.getShort ( position + 10 ) );
+			spec.setSeed ( index );
+			position += 12;
+
+			int tiles = colDimension * rowDimension;
+			for ( int word = 0; word < ( tiles + 63 ) >>> 6; ++word, position += 8 )
+			{
+				long pits = buffer.getLong ( position );
+				while ( pits != 0 )
+				{
+					int tile = ( word << 6 ) + Long.numberOfTrailingZeros ( pits );
+					spec.addPit ( tile % colDimension, tile / colDimension );
+					pits &= pits - 1;
+				}
+			}
+
+			++index;
+		}
+	}
+
+	// ===============================================================
+	// =					Writer Functions
+	// ===============================================================
+
+	public static void write ( Stream<WorldSpec> worlds, File packFile ) throws IOException
+	{
+		write ( worlds.iterator(), packFile );
+	}
+
+	public static void write ( Iterator<WorldSpec> worlds, File packFile ) throws IOException
+	{
+		int count = 0;
+
+		DataOutputStream out = new DataOutputStream ( new BufferedOutputStream ( new FileOutputStream ( packFile ) ) );
+		try
+		{
+			out.writeInt ( MAGIC );
+			out.writeInt ( VERSION );
+			out.writeInt ( 0 );
+
+			while ( worlds.hasNext() )
+			{
+				writeWorld ( out, worlds.next() );
+				++count;
+			}
+		}
+		finally
+		{
+			out.close();
+		}
+
+		// Patch in the number of worlds
+		RandomAccessFile file = new RandomAccessFile ( packFile, "rw" );
+		try
+		{
+			file.seek ( 8 );
+			file.writeInt ( count );
+		}
+		finally
+		{
+			file.close();
+		}
+	}
+
+	private static void writeWorld ( DataOutputStream out, WorldSpec spec ) throws IOException
+	{
+		int colDimension = spec.getColDimension();
+		int rowDimension = spec.getRowDimension();
+
+		out.writeShort ( checkShort ( colDimension ) );
+		out.writeShort ( checkShort ( rowDimension ) );
+		out.writeShort ( checkShort ( spec.getWumpusC() ) );
+		out.writeShort ( checkShort ( spec.getWumpusR() ) );
+		out.writeShort ( checkShort ( spec.getGoldC() ) );
+		out.writeShort ( checkShort ( spec.getGoldR() ) );
+
+		int tiles = colDimension * rowDimension;
+		for ( int word = 0; word < ( tiles + 63 ) >>> 6; ++word )
+		{
+			long pits = 0;
+			for ( int bit = 0; bit < 64 && ( word << 6 ) + bit < tiles; ++bit )
+			{
+				int tile = ( word << 6 ) + bit;
+				if ( spec.isPit ( tile % colDimension, tile / colDimension ) )
+					pits |= 1L << bit;
+			}
+			out.writeLong ( pits );
+		}
+	}
+
+	private static int checkShort ( int value ) throws IOException
+	{
+		if ( value < Short.MIN_VALUE || value > Short.MAX_VALUE )
+			throw new IOException ( "Value does not fit in a world pack: " + value );
+		return value;
+	}
+
+	// ===============================================================
+	// =					Text Functions
+	// ===============================================================
+
+	// Reads a tab-separated world file, with the same rules as World
+	public static WorldSpec readText ( File worldFile ) throws Exception
+	{
+		Scanner scan = new Scanner ( worldFile );
+		try
+		{
+			int colDimension = nextInt ( scan );
+			int rowDimension = nextInt ( scan );
+
+			WorldSpec spec = new WorldSpec ( colDimension, rowDimension );
+			int c = nextInt ( scan );
+			spec.setWumpus ( c, nextInt ( scan ) );
+			c = nextInt ( scan );
+			spec.setGold ( c, nextInt ( scan ) );
+
+			int numOfPits = nextInt ( scan );
+			while ( numOfPits > 0 && scan.hasNextLine() )
+			{
+				--numOfPits;
+				c = nextInt ( scan );
+				spec.addPit ( c, nextInt ( scan ) );
+			}
+
+			return spec;
+		}
+		finally
+		{
+			scan.close();
+		}
+	}
+
+	// Writes a tab-separated world file that World reads back as 'spec'
+	public static void writeText ( WorldSpec spec, File worldFile ) throws IOException
+	{
+		BufferedWriter out = new BufferedWriter ( new FileWriter ( worldFile ) );
+		try
+		{
+			out.write ( spec.getColDimension() + "\t" + spec.getRowDimension() + "\n" );
+			out.write ( spec.getWumpusC() + "\t" + spec.getWumpusR() + "\n" );
+			out.write ( spec.getGoldC() + "\t" + spec.getGoldR() + "\n" );
+			out.write ( spec.getNumOfPits() + "\n" );
+
+			for ( int r = 0; r < spec.getRowDimension(); ++r )
+				for ( int c = 0; c < spec.getColDimension(); ++c )
+					if ( spec.isPit ( c, r ) )
+						out.write ( c + "\t" + r + "\n" );
+		}
+		finally
+		{
+			out.close();
+		}
+	}
+
+	// Packs every world file of a folder, in file name order
+	public static int pack ( File worldFolder, File packFile ) throws Exception
+	{
+		File[] listOfWorlds = worldFolder.listFiles();
+		if ( listOfWorlds == null )
+			throw new IOException ( "Failed to open directory: " + worldFolder );
+		Arrays.sort ( listOfWorlds );
+
+		WorldSpec[] specs = new WorldSpec[listOfWorlds.length];
+		for ( int i = 0; i < listOfWorlds.length; ++i )
+			specs[i] = readText ( listOfWorlds[i] );
+
+		write ( Arrays.asList ( specs ).iterator(), packFile );
+		return specs.length;
+	}
+
+	// Writes every world of a pack to the folder as world_<index>.txt
+	public static int unpack ( File packFile, File worldFolder ) throws IOException
+	{
+		if ( !worldFolder.isDirectory() && !worldFolder.mkdirs() )
+			throw new IOException ( "Failed to create directory: " + worldFolder );
+
+		WorldPack pack = open ( packFile );
+		Cursor cursor = pack.cursor();
+		WorldSpec spec = new WorldSpec();
+		int index = 0;
+
+		// Zero-padded, so that packing the folder again keeps the order
+		String format = "world_%0" + Integer.toString ( Math.max ( 0, pack.size() - 1 ) ).length() + "d.txt";
+
+		while ( cursor.hasNext() )
+		{
+			cursor.next ( spec );
+			writeText ( spec, new File ( worldFolder, String.format ( format, index ) ) );
+			++index;
+		}
+
+		return index;
+	}
+
+	private static int nextInt ( Scanner scan ) throws Exception
+	{
+		if ( !scan.hasNextInt() )
+			throw new Exception();
+		return scan.nextInt();
+	}
+
+	// ===============================================================
+	// =					Command Line
+	// ===============================================================
+
+	public static void main ( String[] args )
+	{
+		if ( args.length != 3 || !( args[0].equals ( "pack" ) || args[0].equals ( "unpack" ) ) )
+		{
+			System.out.println ( "WorldPack pack   [WorldFolder] [PackFile]" );
+			System.out.println ( "WorldPack unpack [PackFile] [WorldFolder]" );
+			return;
+		}
+
+		try
+		{
+			int count;
+			if ( args[0].equals ( "pack" ) )
+				count = pack ( new File ( args[1] ), new File ( args[2] ) );
+			else
+				count = unpack ( new File ( args[1] ), new File ( args[2] ) );
+
+			System.out.println ( "Converted " + count + " worlds." );
+		}
+		catch ( Exception e )
+		{
+			System.out.println ( "[ERROR] Failure to convert worlds: " + e.getMessage() );
+		}
+	}
+}
@@ -0,0 +1,67 @@
+// ======================================================================
+// FILE:        WorldResult.java
+//
+// DESCRIPTION: This file contains the world result class, which holds
+//              how one game went: the world it was played on, the score,
+//              the number of actions, how it ended, and how long it
+//              took. A world that failed to load or whose agent threw
+//              gets a result too, carrying the exception instead.
+//
+// NOTES:       - The time covers loading the world and playing it.
+// ======================================================================
+
+public class WorldResult
+{
+	// ===============================================================
+	// =						Declarations
+	// ===============================================================
+
+	private final String			name;		// The world file, or the index of an in-memory world
+	private final int				score;		// The agent's score
+	private final int				steps;		// The number of actions the agent made
+	private final World.Outcome		outcome;	// How the game ended; null if it failed
+	private final long				nanos;		// Time spent on the world
+	private final Exception			error;		// Why the world failed; null if it did not
+
+	// ===============================================================
+	// =						Constructors
+	// ===============================================================
+
+	// The result of a world that has just been run
+	public WorldResult ( String _name, World world, long _nanos )
+	{
+		this ( _name, world.getScore(), world.getSteps(), world.getOutcome(), _nanos, null );
+	}
+
+	// The result of a world that failed
+	public WorldResult ( String _name, Exception _error, long _nanos )
+	{
+		this ( _name, 0, 0, null, _nanos, _error );
+	}
+
+	public WorldResult ( String _name, int _score, int _steps, World.Outcome _outcome, long _nanos, Exception _error )
+	{
+		name    = _name;
+		score   = _score;
+		steps   = _steps;
+		outcome = _outcome;
+		nanos   = _nanos;
+		error   = _error;
+	}
+
+	// ===============================================================
+	// =					Getter Functions
+	// ===============================================================
+
+	public String getName ( )				{ return name; }
+	public int getScore ( )					{ return score; }
+	public int getSteps ( )					{ return steps; }
+	public World.Outcome getOutcome ( )		{ return outcome; }
+	public long getNanos ( )				{ return nanos; }
+	public Exception getError ( )			{ return error; }
+
+	public boolean isError ( )
+	{
+		return error != null;
+	}
+}
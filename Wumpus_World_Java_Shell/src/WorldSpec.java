@@ -0,0 +1,182 @@
+// ======================================================================
+// FILE:        WorldSpec.java
+//
+// DESCRIPTION: This file contains the world spec class, which holds the
+//              layout of one world in memory: the board dimensions, the
+//              Wumpus, the gold and the pits. It carries the same
+//              information as a world file, so a World can be built
+//              from it without touching the file system.
+//
+// NOTES:       - Pits are kept as a bitmask, one bit per tile, where
+//                tile (c, r) is bit r * colDimension + c.
+//
+//              - A procedural spec keeps no pits at all: they are worked
+//                out from the seed by ProceduralBoard, so the board can
+//                be far bigger than a bitmask could hold.
+//
+//              - A spec is mutable so that a generator can fill the
+//                same object again and again without allocating.
+// ======================================================================
+
+import java.util.Arrays;
+
+public class WorldSpec
+{
+	// ===============================================================
+	// =						Declarations
+	// ===============================================================
+
+	// The most tiles a pit bitmask holds: every tile's index and the
+	// bitmask's number of words must fit in an int
+	public static final long MAX_TILES = Integer.MAX_VALUE - 63;
+
+	private int		colDimension;	// The number of columns the game board has
+	private int		rowDimension;	// The number of rows the game board has
+	private int		wumpusC;		// The column of the Wumpus
+	private int		wumpusR;		// The row of the Wumpus
+	private int		goldC;			// The column of the gold
+	private int		goldR;			// The row of the gold
+	private long[]	pits;			// The pit bitmask
+	private long	seed;			// The seed the world was generated from, if any
+	private boolean	procedural;		// If true, the pits come from the seed instead of the bitmask
+
+	// ===============================================================
+	// =						Constructors
+	// ===============================================================
+
+	public WorldSpec ( )
+	{
+		this ( 4, 4 );
+	}
+
+	public WorldSpec ( int _colDimension, int _rowDimension )
+	{
+		pits = new long[1];
+		reset ( _colDimension, _rowDimension );
+	}
+
+	// ===============================================================
+	// =					Layout Functions
+	// ===============================================================
+
+	// Clears the layout and sets new dimensions
+	public void reset ( int _colDimension, int _rowDimension )
+	{
+		if ( (long) _colDimension * _rowDimension > MAX_TILES )
+			throw new IllegalArgumentException ( "Too many tiles for a pit bitmask: " + _colDimension + "x" + _rowDimension );
+
+		resetProcedural ( _colDimension, _rowDimension );
+		procedural = false;
+
+		int words = getNumOfWords();
+		if ( pits.length < words )
+			pits = new long[words];
+		else
+			Arrays.fill ( pits, 0L );
+	}
+
+	// Clears the layout and sets new dimensions, for pits that come
+	// from the seed; the dimensions may be as big as an int allows
+	public void resetProcedural ( int _colDimension, int _rowDimension )
+	{
+		if ( _colDimension < 1 || _rowDimension < 1 )
+			throw new IllegalArgumentException ( "Invalid world dimensions: " + _colDimension + "x" + _rowDimension );
+
+		colDimension = _colDimension;
+		rowDimension = _rowDimension;
+		wumpusC      = -1;
+		wumpusR      = -1;
+		goldC        = -1;
+		goldR        = -1;
+		seed         = 0;
+		procedural   = true;
+	}
+
+	public void setWumpus ( int c, int r )
+	{
+		wumpusC = c;
+		wumpusR = r;
+	}
+
+	public void setGold ( int c, int r )
+	{
+		goldC = c;
+		goldR = r;
+	}
+
+	// Out of bounds pits are ignored, like World does, and so are the
+	// pits of a procedural spec
+	public void addPit ( int c, int r )
+	{
+		if ( !procedural && isInBounds ( c, r ) )
+		{
+			int index = r * colDimension + c;
+			pits[index >>> 6] |= 1L << index;
+		}
+	}
+
+	public boolean isPit ( int c, int r )
+	{
+		if ( !isInBounds ( c, r ) )
+			return false;
+		if ( procedural )
+			return ProceduralBoard.isPit ( seed, c, r );
+		int index = r * colDimension + c;
+		return ( pits[index >>> 6] & ( 1L << index ) ) != 0;
+	}
+
+	public boolean isInBounds ( int c, int r )
+	{
+		return ( c < colDimension && r < rowDimension && c >= 0 && r >= 0 );
+	}
+
+	public void setSeed ( long _seed )
+	{
+		seed = _seed;
+	}
+
+	// ===============================================================
+	// =					Getter Functions
+	// ===============================================================
+
+	public int getColDimension ( ) { return colDimension; }
+	public int getRowDimension ( ) { return rowDimension; }
+	public int getWumpusC      ( ) { return wumpusC; }
+	public int getWumpusR      ( ) { return wumpusR; }
+	public int getGoldC        ( ) { return goldC; }
+	public int getGoldR        ( ) { return goldR; }
+	public long getSeed        ( ) { return seed; }
+	public boolean isProcedural ( ) { return procedural; }
+
+	// Word 'word' of the pit bitmask; a procedural spec has none
+	public long getPits ( int word )
+	{
+		return pits[word];
+	}
+
+	// Visits every tile of a procedural spec
+	public int getNumOfPits ( )
+	{
+		if ( procedural )
+		{
+			int count = 0;
+			for ( int r = 0; r < rowDimension; ++r )
+				for ( int c = 0; c < colDimension; ++c )
+					if ( isPit ( c, r ) )
+						++count;
+			return count;
+		}
+
+		int words = getNumOfWords();
+		int count = 0;
+		for ( int i = 0; i < words; ++i )
+			count += Long.bitCount ( pits[i] );
+		return count;
+	}
+
+	// The longs of the pit bitmask
+	private int getNumOfWords ( )
+	{
+		return (int) ( ( (long) colDimension * rowDimension + 63 ) >>> 6 );
+	}
+}